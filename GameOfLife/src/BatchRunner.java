@@ -0,0 +1,499 @@
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.JMException;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Headless entry point, steps a pattern on any Cells engine as fast as possible
+ * and reports throughput, no window or display is needed
+ */
+public class BatchRunner {
+	private static final String USAGE = "usage: java -cp gol.jar BatchRunner [options]\n"
+			+ "  -e engine     Cells implementation class, default BitGridCells\n"
+			+ "  -n count      generations to run, default 1000\n"
+			+ "  -p pattern    .rle, .lif or .cells file, other files and inline strings are '.', '0'\n"
+			+ "                and 'n' as in the gui\n"
+			+ "  -s CxR        board columns and rows, default pattern size\n"
+			+ "  -r n          random fill, one cell in n is alive\n"
+			+ "  -seed n       random fill seed, default 0\n"
+			+ "  -w on|off     teleport cells across the edges, default engine setting\n"
+			+ "  -rule B/S     life-like rule, i.e. B36/S23, default the pattern's or B3/S23\n"
+			+ "                Generations rules, i.e. B2/S/C3, need -e GenerationsCells\n"
+			+ "  -t threads    stepping threads, for engines that step in parallel\n"
+			+ "  -o interval   print a snapshot every interval generations\n"
+			+ "  -q            with -o, print only the snapshot statistics, not the board\n"
+			+ "  -load file    start from a binary snapshot instead of a pattern\n"
+			+ "  -save file    write a binary snapshot at the end, and at every -o interval\n"
+			+ "  -cycle mode   stop or skip once the board repeats, skip steps only what is left of\n"
+			+ "                the last period, the board comes out as if every generation was stepped\n"
+			+ "  -history n    with -cycle, longest period found, default 1024\n"
+			+ "  -metrics      count births, deaths and step latency, reported and shown over JMX\n"
+			+ "                as GameOfLife:type=StepMetrics, for engines that count them, i.e. CellsImpl\n";
+	private String engine = "BitGridCells";
+	private long generations = 1000;
+	private String pattern = null;
+	private int columns = 0;
+	private int rows = 0;
+	private int randomFill = 0;
+	private long seed = 0;
+	private Boolean teleport = null;
+	private Rule rule = null;
+	private int threads = 1;
+	private long snapshotInterval = 0;
+	private boolean snapshotBoard = true;
+	private String load = null;
+	private String save = null;
+	//stop or skip once the board repeats, null to step every generation regardless
+	private String cycle = null;
+	private int history = CycleDetector.DEFAULT_HISTORY;
+	//step counts of the run, null unless asked for
+	private StepMetrics metrics = null;
+	private PrintStream out = System.out;
+
+	/**
+	 * Outcome of a run
+	 */
+	static final class Result {
+		final long generations;
+		final long nanos;
+		final long cells;
+		final long population;
+		final Rule rule;
+		//generation the board settled at and its period, period 0 if no repeat was found
+		final long settled;
+		final long period;
+
+		Result(long generations, long nanos, long cells, long population, Rule rule, long settled, long period) {
+			this.generations = generations;
+			this.nanos = nanos;
+			this.cells = cells;
+			this.population = population;
+			this.rule = rule;
+			this.settled = settled;
+			this.period = period;
+		}
+
+		double generationsPerSecond() {
+			return this.nanos == 0 ? 0 : this.generations * 1e9 / this.nanos;
+		}
+
+		double cellsPerSecond() {
+			return generationsPerSecond() * this.cells;
+		}
+	}
+
+	/**
+	 * Parse arguments and run, exit code 1 on bad input
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if (args.length == 1 && args[0].equals("-h")) {
+			System.out.print(USAGE);
+			return;
+		}
+		BatchRunner runner = new BatchRunner();
+		try {
+			runner.parse(args);
+			runner.report(runner.run());
+		} catch (IllegalArgumentException | ReflectiveOperationException ex) {
+			System.err.printf("%s\n%s", ex.getMessage(), USAGE);
+			System.exit(1);
+		} catch (IOException ex) {
+			System.err.printf("%s\n", ex);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Read command line options
+	 * @param args
+	 */
+	void parse(String[] args) {
+		for (int i = 0; i < args.length; ++i) {
+			String arg = args[i];
+			if (arg.equals("-q")) {
+				this.snapshotBoard = false;
+				continue;
+			}
+			if (arg.equals("-metrics")) {
+				this.metrics = new StepMetrics();
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("missing value for " + arg);
+			}
+			String value = args[++i];
+			try {
+				switch (arg) {
+				case "-e":
+					this.engine = value;
+					break;
+				case "-n":
+					this.generations = Long.parseLong(value);
+					break;
+				case "-p":
+					this.pattern = value;
+					break;
+				case "-s":
+					String[] size = value.split("x");
+					if (size.length != 2) {
+						throw new IllegalArgumentException("size must be columns x rows, i.e. 512x512");
+					}
+					this.columns = Integer.parseInt(size[0]);
+					this.rows = Integer.parseInt(size[1]);
+					break;
+				case "-r":
+					this.randomFill = Integer.parseInt(value);
+					break;
+				case "-seed":
+					this.seed = Long.parseLong(value);
+					break;
+				case "-w":
+					this.teleport = value.equals("on");
+					break;
+				case "-rule":
+					this.rule = Rule.parse(value);
+					break;
+				case "-t":
+					this.threads = Integer.parseInt(value);
+					break;
+				case "-o":
+					this.snapshotInterval = Long.parseLong(value);
+					break;
+				case "-load":
+					this.load = value;
+					break;
+				case "-save":
+					this.save = value;
+					break;
+				case "-cycle":
+					if (!value.equals("stop") && !value.equals("skip")) {
+						throw new IllegalArgumentException("-cycle must be stop or skip");
+					}
+					this.cycle = value;
+					break;
+				case "-history":
+					this.history = Integer.parseInt(value);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option " + arg);
+				}
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("invalid number for " + arg + ": " + value);
+			}
+		}
+		if (this.generations < 0) {
+			throw new IllegalArgumentException("generations must not be negative");
+		}
+	}
+
+	/**
+	 * Send reports and snapshots somewhere other than standard output
+	 * @param ps: output stream
+	 */
+	void setOutput(PrintStream ps) {
+		this.out = ps;
+	}
+
+	/**
+	 * Build the engine, load the board and step it
+	 * snapshots are not counted in the elapsed time
+	 * @return throughput of the run
+	 */
+	Result run() throws IOException, ReflectiveOperationException {
+		Cells cells = createEngine();
+		long first = 0;
+		if (this.load != null) {
+			first = Snapshot.load(cells, Paths.get(this.load)).getGeneration();
+		} else if (isPatternFile()) {
+			Dimension size = PatternReader.load(Paths.get(this.pattern), cells);
+			// -s makes room around the pattern
+			if (this.columns > size.width || this.rows > size.height) {
+				cells.resize(Math.max(this.columns, size.width), Math.max(this.rows, size.height));
+			}
+		} else {
+			String[] lines = readPattern();
+			int c = this.columns;
+			int r = this.rows;
+			if (c == 0) {
+				for (String line : lines) {
+					c = Math.max(c, line.length());
+				}
+			}
+			if (r == 0) {
+				r = lines.length;
+			}
+			if (c <= 0 || r <= 0) {
+				throw new IllegalArgumentException("board size needed, give a pattern, a snapshot or -s");
+			}
+			cells.resize(c, r);
+			populate(cells, lines);
+			if (this.randomFill > 0) {
+				cells.fillRandom(1.0 / this.randomFill, this.seed);
+			}
+		}
+		if (this.teleport != null && this.teleport != cells.isTeleport()) {
+			cells.toggleTeleport();
+			if (this.teleport != cells.isTeleport()) {
+				throw new IllegalArgumentException(this.engine + " can't teleport cells");
+			}
+		}
+		if (this.rule != null) {
+			cells.setRule(this.rule);
+		}
+		if (this.metrics != null) {
+			if (!(cells instanceof CellsImpl)) {
+				throw new IllegalArgumentException(this.engine + " doesn't count step metrics");
+			}
+			((CellsImpl) cells).setMetrics(this.metrics);
+			try {
+				this.metrics.register("BatchRunner");
+			} catch (JMException ex) {
+				System.err.printf("metrics not shown over JMX: %s\n", ex);
+			}
+		}
+
+		CycleDetector cycles = null;
+		if (this.cycle != null) {
+			cycles = new CycleDetector(this.history);
+			cycles.record(first, cells.getHash());
+		}
+		long elapsed = 0;
+		long done = 0;
+		long chunk = this.snapshotInterval > 0 ? this.snapshotInterval : this.generations;
+		boolean saved = false;
+		while (done < this.generations) {
+			long n = Math.min(chunk, this.generations - done);
+			long start = System.nanoTime();
+			if (cycles == null) {
+				cells.stepBy(n);
+			} else {
+				n = stepUntilCycle(cells, cycles, first + done, n);
+			}
+			elapsed += System.nanoTime() - start;
+			done += n;
+			if (cycles != null && cycles.isCycle()) {
+				if (this.cycle.equals("skip")) {
+					// the board of the last generation is the one a whole number of periods from now
+					start = System.nanoTime();
+					cells.stepBy(cycles.remaining(first + done, first + this.generations));
+					elapsed += System.nanoTime() - start;
+					done = this.generations;
+				}
+				if (this.snapshotInterval > 0) {
+					snapshot(cells, first + done, elapsed);
+				}
+				save(cells, first + done);
+				saved = true;
+				break;
+			}
+			if (this.snapshotInterval > 0) {
+				snapshot(cells, first + done, elapsed);
+				save(cells, first + done);
+			}
+		}
+		if (this.snapshotInterval <= 0 && !saved) {
+			save(cells, first + done);
+		}
+		if (this.metrics != null) {
+			try {
+				this.metrics.unregister();
+			} catch (JMException ex) {
+				System.err.printf("%s\n", ex);
+			}
+		}
+		Dimension size = cells.getDimension();
+		long settled = cycles != null && cycles.isCycle() ? cycles.getStart() : 0;
+		long period = cycles != null ? cycles.getPeriod() : 0;
+		return new Result(done, elapsed, (long) size.width * size.height, population(cells), cells.getRule(),
+				settled, period);
+	}
+
+	/**
+	 * Step a generation at a time, hashing each board, until the board repeats
+	 * @param cells: engine
+	 * @param cycles: hashes of the generations so far
+	 * @param generation: generation number of the board now
+	 * @param n: most generations to step
+	 * @return generations stepped
+	 */
+	private static long stepUntilCycle(Cells cells, CycleDetector cycles, long generation, long n) {
+		for (long k = 1; k <= n; ++k) {
+			cells.step();
+			if (cycles.record(generation + k, cells.getHash())) {
+				return k;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Count live cells, packed rows are counted a word at a time, other engines are asked
+	 * @param cells: engine
+	 */
+	private static long population(Cells cells) {
+		if (!(cells instanceof PackedRows)) {
+			return cells.getPopulation();
+		}
+		int c = cells.getDimension().width;
+		int r = cells.getDimension().height;
+		long[] row = new long[(c + 63) >>> 6];
+		LongBuffer words = LongBuffer.wrap(row);
+		long population = 0;
+		for (int i = 0; i < r; ++i) {
+			((PackedRows) cells).readRow(i, words, 0);
+			for (long word : row) {
+				population += Long.bitCount(word);
+			}
+		}
+		return population;
+	}
+
+	/**
+	 * Checkpoint the board to the snapshot file, if one was given
+	 * @param cells: engine
+	 * @param generation: generation number to record
+	 */
+	private void save(Cells cells, long generation) throws IOException {
+		if (this.save != null) {
+			Snapshot.save(cells, generation, Paths.get(this.save));
+		}
+	}
+
+	/**
+	 * Print the result of a run
+	 * @param result
+	 */
+	void report(Result result) {
+		this.out.printf("engine %s\n", this.engine);
+		this.out.printf("rule %s\n", result.rule);
+		this.out.printf("generations %d in %.3f s\n", result.generations, result.nanos / 1e9);
+		this.out.printf("generations/sec %.1f\n", result.generationsPerSecond());
+		this.out.printf("cells/sec %.4g\n", result.cellsPerSecond());
+		this.out.printf("population %d\n", result.population);
+		if (this.metrics != null) {
+			this.out.printf("births %d deaths %d cells evaluated %d\n", this.metrics.getTotalBirths(),
+					this.metrics.getTotalDeaths(), this.metrics.getTotalCellsEvaluated());
+			this.out.printf("step median %d ns, 99th percentile %d ns\n", this.metrics.getMedianStepNanos(),
+					this.metrics.getP99StepNanos());
+		}
+		if (result.period > 0) {
+			this.out.printf("settled at generation %d, period %d\n", result.settled, result.period);
+		}
+	}
+
+	/**
+	 * @return true if the pattern is an RLE, Life 1.06 or plaintext file
+	 */
+	private boolean isPatternFile() {
+		if (this.pattern == null || !Files.isRegularFile(Paths.get(this.pattern))) {
+			return false;
+		}
+		String name = this.pattern.toLowerCase();
+		return name.endsWith(".rle") || name.endsWith(".lif") || name.endsWith(".life") || name.endsWith(".cells");
+	}
+
+	/**
+	 * Pattern lines from a file, or from the argument itself as typed in the gui
+	 * @return pattern rows, empty without a pattern
+	 */
+	private String[] readPattern() throws IOException {
+		if (this.pattern == null) {
+			return new String[0];
+		}
+		Path path = Paths.get(this.pattern);
+		if (Files.isRegularFile(path)) {
+			List<String> lines = new ArrayList<>();
+			for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				for (String row : line.split("n")) {
+					lines.add(row.trim());
+				}
+			}
+			return lines.toArray(new String[0]);
+		}
+		return this.pattern.split("n");
+	}
+
+	/**
+	 * Create an engine by class name and set its threads
+	 */
+	private Cells createEngine() throws ReflectiveOperationException {
+		Class<?> type;
+		try {
+			type = Class.forName(this.engine);
+		} catch (ClassNotFoundException ex) {
+			throw new IllegalArgumentException("unknown engine " + this.engine);
+		}
+		if (!Cells.class.isAssignableFrom(type)) {
+			throw new IllegalArgumentException(this.engine + " is not a Cells engine");
+		}
+		Cells cells = (Cells) type.getConstructor().newInstance();
+		if (cells instanceof CellsImpl) {
+			((CellsImpl) cells).setParallelism(this.threads);
+		} else if (cells instanceof IndexedCells) {
+			((IndexedCells) cells).setParallelism(this.threads);
+		} else if (cells instanceof BitGridCells) {
+			((BitGridCells) cells).setParallelism(this.threads);
+		} else if (cells instanceof OffHeapCells) {
+			((OffHeapCells) cells).setParallelism(this.threads);
+		}
+		return cells;
+	}
+
+	/**
+	 * Set live cells from pattern rows, '0' is alive
+	 * each row is packed and set as a region, as PatternReader does, rows and columns
+	 * beyond a board smaller than the pattern are clipped without output
+	 * @param cells: engine, freshly sized
+	 * @param lines: pattern rows
+	 */
+	private static void populate(Cells cells, String[] lines) {
+		int c = cells.getDimension().width;
+		int r = Math.min(lines.length, cells.getDimension().height);
+		long[] row = new long[(c + 63) >>> 6];
+		for (int i = 0; i < r; ++i) {
+			String line = lines[i];
+			int end = Math.min(c, line.length());
+			Arrays.fill(row, 0);
+			for (int j = 0; j < end; ++j) {
+				if (line.charAt(j) == '0') {
+					row[j >>> 6] |= 1L << j;
+				}
+			}
+			cells.setRegion(i, 0, c, 1, row);
+		}
+	}
+
+	/**
+	 * Print generation statistics and, unless quiet, the visible board
+	 * @param cells: engine
+	 * @param generation: generations run so far
+	 * @param elapsed: stepping time so far in nanoseconds
+	 */
+	private void snapshot(Cells cells, long generation, long elapsed) {
+		this.out.printf("generation %d population %d elapsed %.3f s\n", generation, population(cells),
+				elapsed / 1e9);
+		if (this.snapshotBoard) {
+			int c = cells.getDimension().width;
+			int r = cells.getDimension().height;
+			StringBuilder sb = new StringBuilder(r * (c + 1));
+			for (int i = 0; i < r; ++i) {
+				for (int j = 0; j < c; ++j) {
+					sb.append(cells.getState(i, j) ? '0' : '.');
+				}
+				sb.append('\n');
+			}
+			this.out.print(sb);
+		}
+	}
+}
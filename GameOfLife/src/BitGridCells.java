@@ -0,0 +1,612 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation that packs the grid into 64 cells per long word
+ * and computes each generation with word-wide bitwise adder logic
+ *
+ */
+public class BitGridCells implements Cells, PackedRows {
+	private long[] cells = new long[0];
+	private long[] cellsBuffer = new long[0];
+	// always zero, stands in for the rows above and below the grid when not teleporting
+	private long[] emptyRow = new long[0];
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	private int words = 0;
+	private long tailMask = 0;
+	private boolean teleport = true;
+	private Rule rule = Rule.CONWAY;
+	//rule table as words, null for B3/S23 which has its own adder logic
+	private long[] masks = null;
+	//pool for stepping bands of rows in parallel, null when stepping on the calling thread
+	private ForkJoinPool pool = null;
+	private final RowBandTask.RowBand stepBand = this::stepRows;
+	//vector kernel when the jdk.incubator.vector module is present, null otherwise
+	static final WordKernel VECTOR_KERNEL = loadVectorKernel();
+	private WordKernel kernel = VECTOR_KERNEL;
+
+	/**
+	 * Load the vector kernel only if its module was added to the boot layer
+	 * and the hardware holds more than one word per vector, otherwise step scalar
+	 * @return kernel or null
+	 */
+	private static WordKernel loadVectorKernel() {
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			return null;
+		}
+		try {
+			if (VectorWordKernel.lanes() < 2) {
+				return null;
+			}
+			return new VectorWordKernel();
+		} catch (LinkageError ex) {
+			return null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Called when the window is resized
+	 * copy overlapping rows word by word into the resized buffers
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		int w = (c + 63) >>> 6;
+		long[] resized = new long[r * w];
+		int copyRows = Math.min(r, this.rows);
+		int copyWords = Math.min(w, this.words);
+		for (int i = 0; i < copyRows; ++i) {
+			System.arraycopy(this.cells, i * this.words, resized, i * w, copyWords);
+		}
+		this.columns = c;
+		this.rows = r;
+		this.words = w;
+		this.tailMask = (c & 63) == 0 ? -1L : (1L << (c & 63)) - 1;
+		// drop any cells that fell off the right edge when shrinking
+		if (w > 0) {
+			for (int i = 0; i < r; ++i) {
+				resized[(i * w) + w - 1] &= this.tailMask;
+			}
+		}
+		this.cells = resized;
+		this.cellsBuffer = new long[r * w];
+		this.emptyRow = new long[w];
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells, one row of words at a time
+	 * every word of the buffer is written, so it never needs to be cleared
+	 */
+	@Override
+	public void step() {
+		if (this.pool != null) {
+			RowBandTask.invoke(this.pool, this.stepBand, this.rows);
+		} else {
+			stepRows(0, this.rows);
+		}
+		// swap arrays for next iteration
+		long[] tmp = this.cellsBuffer;
+		this.cellsBuffer = this.cells;
+		this.cells = tmp;
+	}
+
+	/**
+	 * Set the number of threads used to step, rows are split into bands
+	 * and processed by a fork join pool
+	 * @param parallelism: number of threads, 1 or less steps on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		if (parallelism > 1) {
+			this.pool = new ForkJoinPool(parallelism);
+		}
+	}
+
+	/**
+	 * Use the vector kernel for interior words, only has an effect when it could be loaded
+	 * @param vectorized: false to always step with the scalar loop
+	 */
+	public void setVectorized(boolean vectorized) {
+		this.kernel = vectorized ? VECTOR_KERNEL : null;
+	}
+
+	/**
+	 * @return true if stepping uses the vector kernel
+	 */
+	public boolean isVectorized() {
+		return this.kernel != null;
+	}
+
+	/**
+	 * Calculate next generation for a band of rows into the buffer
+	 * @param from: first row
+	 * @param to: last row, exclusive
+	 */
+	private void stepRows(int from, int to) {
+		for (int i = from; i < to; ++i) {
+			stepRow(i);
+		}
+	}
+
+	/**
+	 * Calculate next generation for a single row into the buffer
+	 * @param i: row
+	 */
+	private void stepRow(int i) {
+		long[] up = this.cells;
+		long[] down = this.cells;
+		int upRow = i - 1;
+		int downRow = i + 1;
+		if (this.teleport) {
+			if (upRow < 0) {
+				upRow = this.rows - 1;
+			}
+			if (downRow >= this.rows) {
+				downRow = 0;
+			}
+		} else {
+			if (upRow < 0) {
+				up = this.emptyRow;
+				upRow = 0;
+			}
+			if (downRow >= this.rows) {
+				down = this.emptyRow;
+				downRow = 0;
+			}
+		}
+		stepRow(up, upRow * this.words, this.cells, i * this.words, down, downRow * this.words,
+				this.cellsBuffer, i * this.words, this.words, this.columns, this.tailMask, this.teleport, this.kernel,
+				this.masks);
+	}
+
+	/**
+	 * Calculate the next generation of one row of packed words
+	 * rows are passed as array and offset so callers can use their own storage
+	 * interior words go through the kernel when there is one, the rest are done here
+	 * @param up: row above
+	 * @param upOffset
+	 * @param mid: row being calculated
+	 * @param midOffset
+	 * @param down: row below
+	 * @param downOffset
+	 * @param out: destination row
+	 * @param outOffset
+	 * @param w: words per row
+	 * @param c: columns
+	 * @param mask: valid bits of the last word
+	 * @param wrap: teleport cells across the left and right edges
+	 * @param kernel: interior word kernel, null for the scalar loop only
+	 * @param rule: rule table as words, see Rule.masks, null for B3/S23
+	 */
+	static void stepRow(long[] up, int upOffset, long[] mid, int midOffset, long[] down, int downOffset,
+			long[] out, int outOffset, int w, int c, long mask, boolean wrap, WordKernel kernel, long[] rule) {
+		int last = w - 1;
+		int k = 0;
+		if (kernel != null && last > 1) {
+			stepWord(up, upOffset, mid, midOffset, down, downOffset, out, outOffset, 0, w, c, mask, wrap, rule);
+			k = kernel.stepWords(up, upOffset, mid, midOffset, down, downOffset, out, outOffset, 1, last, rule);
+		}
+		for (; k < w; ++k) {
+			stepWord(up, upOffset, mid, midOffset, down, downOffset, out, outOffset, k, w, c, mask, wrap, rule);
+		}
+	}
+
+	/**
+	 * Calculate the next generation of a single packed word of a row
+	 * @param k: word
+	 * see stepRow for the other parameters
+	 */
+	private static void stepWord(long[] up, int upOffset, long[] mid, int midOffset, long[] down, int downOffset,
+			long[] out, int outOffset, int k, int w, int c, long mask, boolean wrap, long[] rule) {
+		int last = w - 1;
+		int edge = (c - 1) & 63;
+		long u = up[upOffset + k];
+		long m = mid[midOffset + k];
+		long d = down[downOffset + k];
+		// bits shifted in from the neighboring words, or from the opposite edge
+		long uw, mw, dw, ue, me, de;
+		if (k > 0) {
+			uw = up[upOffset + k - 1] >>> 63;
+			mw = mid[midOffset + k - 1] >>> 63;
+			dw = down[downOffset + k - 1] >>> 63;
+		} else if (wrap) {
+			uw = (up[upOffset + last] >>> edge) & 1;
+			mw = (mid[midOffset + last] >>> edge) & 1;
+			dw = (down[downOffset + last] >>> edge) & 1;
+		} else {
+			uw = mw = dw = 0;
+		}
+		if (k < last) {
+			ue = up[upOffset + k + 1] << 63;
+			me = mid[midOffset + k + 1] << 63;
+			de = down[downOffset + k + 1] << 63;
+		} else if (wrap) {
+			ue = (up[upOffset] & 1) << edge;
+			me = (mid[midOffset] & 1) << edge;
+			de = (down[downOffset] & 1) << edge;
+		} else {
+			ue = me = de = 0;
+		}
+		long next;
+		if (rule == null) {
+			next = evolve(m,
+					(u << 1) | uw, u, (u >>> 1) | ue,
+					(m << 1) | mw, (m >>> 1) | me,
+					(d << 1) | dw, d, (d >>> 1) | de);
+		} else {
+			next = evolve(m,
+					(u << 1) | uw, u, (u >>> 1) | ue,
+					(m << 1) | mw, (m >>> 1) | me,
+					(d << 1) | dw, d, (d >>> 1) | de, rule);
+		}
+		out[outOffset + k] = k == last ? next & mask : next;
+	}
+
+	/**
+	 * Apply the game rules to 64 cells at once
+	 * the eight aligned neighbor words are summed into bit planes with full adders
+	 * @param alive: current cells
+	 * @return next generation of cells
+	 */
+	static long evolve(long alive, long a, long b, long c, long d, long e, long f, long g, long h) {
+		// three full adders and a half adder reduce the eight inputs to ones and twos
+		long abx = a ^ b;
+		long s0 = abx ^ c;
+		long c0 = (a & b) | (c & abx);
+		long dex = d ^ e;
+		long s1 = dex ^ f;
+		long c1 = (d & e) | (f & dex);
+		long s2 = g ^ h;
+		long c2 = g & h;
+		long sx = s0 ^ s1;
+		long ones = sx ^ s2;
+		long c3 = (s0 & s1) | (s2 & sx);
+		// four carries of weight two reduce to twos, fours and eights
+		long cx = c0 ^ c1;
+		long t = cx ^ c2;
+		long f0 = (c0 & c1) | (c2 & cx);
+		long twos = t ^ c3;
+		long f1 = t & c3;
+		long fours = f0 ^ f1;
+		long eights = f0 & f1;
+		// live cell with 2 or 3 live neighbors, or dead cell with 3 live neighbors
+		return twos & ~fours & ~eights & (ones | alive);
+	}
+
+	/**
+	 * Apply any rule to 64 cells at once, the same adders as evolve, then the rule table
+	 * is looked up in every bit at once: the entries for each cell's state are selected,
+	 * then the entry for its count, by the ones, twos and fours planes, eight by itself
+	 * @param alive: current cells
+	 * @param t: rule table as words, see Rule.masks
+	 * @return next generation of cells
+	 */
+	static long evolve(long alive, long a, long b, long c, long d, long e, long f, long g, long h, long[] t) {
+		long abx = a ^ b;
+		long s0 = abx ^ c;
+		long c0 = (a & b) | (c & abx);
+		long dex = d ^ e;
+		long s1 = dex ^ f;
+		long c1 = (d & e) | (f & dex);
+		long s2 = g ^ h;
+		long c2 = g & h;
+		long sx = s0 ^ s1;
+		long ones = sx ^ s2;
+		long c3 = (s0 & s1) | (s2 & sx);
+		long cx = c0 ^ c1;
+		long tw = cx ^ c2;
+		long f0 = (c0 & c1) | (c2 & cx);
+		long twos = tw ^ c3;
+		long f1 = tw & c3;
+		long fours = f0 ^ f1;
+		long eights = f0 & f1;
+		// entry for each count, birth for dead cells and survival for live ones
+		long r0 = t[0] ^ ((t[0] ^ t[9]) & alive);
+		long r1 = t[1] ^ ((t[1] ^ t[10]) & alive);
+		long r2 = t[2] ^ ((t[2] ^ t[11]) & alive);
+		long r3 = t[3] ^ ((t[3] ^ t[12]) & alive);
+		long r4 = t[4] ^ ((t[4] ^ t[13]) & alive);
+		long r5 = t[5] ^ ((t[5] ^ t[14]) & alive);
+		long r6 = t[6] ^ ((t[6] ^ t[15]) & alive);
+		long r7 = t[7] ^ ((t[7] ^ t[16]) & alive);
+		long r8 = t[8] ^ ((t[8] ^ t[17]) & alive);
+		// counts 0 to 7 by their bits, a count of 8 has only the eights bit set
+		long q0 = r0 ^ ((r0 ^ r1) & ones);
+		long q1 = r2 ^ ((r2 ^ r3) & ones);
+		long q2 = r4 ^ ((r4 ^ r5) & ones);
+		long q3 = r6 ^ ((r6 ^ r7) & ones);
+		long p0 = q0 ^ ((q0 ^ q1) & twos);
+		long p1 = q2 ^ ((q2 ^ q3) & twos);
+		long lo = p0 ^ ((p0 ^ p1) & fours);
+		return lo ^ ((lo ^ r8) & eights);
+	}
+
+	@Override
+	public void toggleTeleport() {
+		this.teleport = !this.teleport;
+	}
+
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * B3/S23 keeps its own adder logic, any other rule is looked up as words
+	 */
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		this.rule = r;
+		this.masks = r.isConway() ? null : r.masks();
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			this.cells[(x * this.words) + (y >>> 6)] ^= 1L << y;
+		} else {
+			System.out.print("Cells.toggle invalid coordinate!\n");
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.cells, 0);
+		Arrays.fill(this.cellsBuffer, 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			this.cells[(x * this.words) + (y >>> 6)] &= ~(1L << y);
+		} else {
+			System.out.print("Cells.clear invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return (this.cells[(x * this.words) + (y >>> 6)] & (1L << y)) != 0;
+		} else {
+			System.out.print("Cells.getState invalid coordinate!\n");
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 * bitmap rows are shifted into place a word at a time
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			copyBits(this.cells, i * this.words, from, to, bitmap, (i - x) * w, w, y);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			clearBits(this.cells, i * this.words, from, to);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < this.rows; ++i) {
+			fillRandomBits(this.cells, i * this.words, this.columns, density, random);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+				int index = (x * this.words) + (y >>> 6);
+				this.cells[index] = alive ? this.cells[index] | (1L << y) : this.cells[index] & ~(1L << y);
+			}
+		}
+	}
+
+	/**
+	 * Copy columns of a bitmap row into a packed row, columns outside of the range are kept
+	 * @param dst: packed rows
+	 * @param dstOffset: first word of the row
+	 * @param from: first column
+	 * @param to: last column, exclusive
+	 * @param src: bitmap
+	 * @param srcOffset: first word of the bitmap row
+	 * @param srcWords: words in the bitmap row
+	 * @param y: column of bit 0 of the bitmap row
+	 */
+	static void copyBits(long[] dst, int dstOffset, int from, int to, long[] src, int srcOffset, int srcWords,
+			int y) {
+		for (int k = from >>> 6; from < to; ++k) {
+			int end = Math.min(to, (k + 1) << 6);
+			long mask = rangeMask(from & 63, end - (k << 6));
+			long bits = bitsAt(src, srcOffset, srcWords, ((long) k << 6) - y);
+			dst[dstOffset + k] = (dst[dstOffset + k] & ~mask) | (bits & mask);
+			from = end;
+		}
+	}
+
+	/**
+	 * Clear columns of a packed row
+	 * @param dst: packed rows
+	 * @param dstOffset: first word of the row
+	 * @param from: first column
+	 * @param to: last column, exclusive
+	 */
+	static void clearBits(long[] dst, int dstOffset, int from, int to) {
+		for (int k = from >>> 6; from < to; ++k) {
+			int end = Math.min(to, (k + 1) << 6);
+			dst[dstOffset + k] &= ~rangeMask(from & 63, end - (k << 6));
+			from = end;
+		}
+	}
+
+	/**
+	 * Bring cells of a packed row to life at random, one random number per column
+	 * as Cells#fillRandom does, so every engine fills the same board for a seed
+	 * @param dst: packed rows
+	 * @param dstOffset: first word of the row
+	 * @param c: columns
+	 * @param density: chance of a cell coming alive
+	 * @param random: random numbers, carried from row to row
+	 */
+	static void fillRandomBits(long[] dst, int dstOffset, int c, double density, Random random) {
+		for (int j = 0; j < c; ++j) {
+			if (random.nextDouble() < density) {
+				dst[dstOffset + (j >>> 6)] |= 1L << j;
+			}
+		}
+	}
+
+	/**
+	 * Bits lo to hi of a word
+	 * @param lo: first bit
+	 * @param hi: last bit, exclusive, up to 64
+	 */
+	private static long rangeMask(int lo, int hi) {
+		return (hi == 64 ? -1L : (1L << hi) - 1) & (-1L << lo);
+	}
+
+	/**
+	 * 64 bits of a packed row starting at any bit position, bits outside of the row are zero
+	 * @param src: packed rows
+	 * @param srcOffset: first word of the row
+	 * @param srcWords: words in the row
+	 * @param p: bit position, may be negative
+	 */
+	private static long bitsAt(long[] src, int srcOffset, int srcWords, long p) {
+		long k = Math.floorDiv(p, 64);
+		int s = Math.floorMod(p, 64);
+		long a = k >= 0 && k < srcWords ? src[srcOffset + (int) k] : 0;
+		if (s == 0) {
+			return a;
+		}
+		long b = k + 1 >= 0 && k + 1 < srcWords ? src[srcOffset + (int) k + 1] : 0;
+		return (a >>> s) | (b << (64 - s));
+	}
+
+	/* (non-Javadoc)
+	 * @see PackedRows#readRow(int, java.nio.LongBuffer, int)
+	 */
+	@Override
+	public void readRow(int i, LongBuffer dst, int index) {
+		dst.put(index, this.cells, i * this.words, this.words);
+	}
+
+	/* (non-Javadoc)
+	 * @see PackedRows#writeRow(int, java.nio.LongBuffer, int)
+	 */
+	@Override
+	public void writeRow(int i, LongBuffer src, int index) {
+		src.get(index, this.cells, i * this.words, this.words);
+		this.cells[(i * this.words) + this.words - 1] &= this.tailMask;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * only set bits are visited
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		long[] current = this.cells;
+		for (int i = 0; i < this.rows; ++i) {
+			for (int k = 0; k < this.words; ++k) {
+				long word = current[(i * this.words) + k];
+				while (word != 0) {
+					visitor.visit(i, (k << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so they are built on demand
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		for (int i = 0; i < this.rows; ++i) {
+			for (int j = 0; j < this.columns; ++j) {
+				boolean alive = (this.cells[(i * this.words) + (j >>> 6)] & (1L << j)) != 0;
+				list.add(new Cell(new Point(i, j), alive ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
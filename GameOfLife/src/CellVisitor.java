@@ -0,0 +1,15 @@
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Receives the coordinates of live cells, one call per cell,
+ * so callers can walk a board without building a list of points
+ */
+@FunctionalInterface
+public interface CellVisitor {
+
+	/**
+	 * A live cell
+	 * @param x: row
+	 * @param y: column
+	 */
+	void visit(int x, int y);
+}
@@ -1,6 +1,7 @@
 import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * @author Kevin Guerra kevingnet@gmail.com
@@ -34,6 +35,16 @@ public interface Cells {
 	 */
 	boolean getState(int x, int y);
 
+	/**
+	 * Get the integer state of a cell, 0 dead, 1 alive, 2 and up decaying under a Generations rule
+	 * two state engines only have 0 and 1
+	 * @param x
+	 * @param y
+	 */
+	default int getCellState(int x, int y) {
+		return getState(x, y) ? 1 : 0;
+	}
+
 	/**
 	 * Clear a cell at given coordinate
 	 * @param x
@@ -46,12 +57,103 @@ public interface Cells {
 	 */
 	void clear();
 
+	/**
+	 * Set the cells of a region from a bitmap, alive where a bit is set and dead where it is clear
+	 * the bitmap has (width + 63) / 64 words per row, bit j of word k is column y + 64k + j
+	 * cells outside of the grid are skipped, without any output
+	 * engines override this with a bulk copy, the default goes a cell at a time
+	 * @param x: top row
+	 * @param y: left column
+	 * @param width: columns of the region
+	 * @param height: rows of the region
+	 * @param bitmap: packed rows
+	 */
+	default void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		Dimension d = getDimension();
+		int words = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(d.height, (long) x + height);
+		int colEnd = (int) Math.min(d.width, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			for (int j = Math.max(0, y); j < colEnd; ++j) {
+				int b = j - y;
+				boolean alive = (bitmap[((i - x) * words) + (b >>> 6)] & (1L << b)) != 0;
+				if (alive != getState(i, j)) {
+					toggle(i, j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clear all cells of a region, cells outside of the grid are skipped
+	 * @param x: top row
+	 * @param y: left column
+	 * @param width: columns of the region
+	 * @param height: rows of the region
+	 */
+	default void clearRegion(int x, int y, int width, int height) {
+		Dimension d = getDimension();
+		int rowEnd = (int) Math.min(d.height, (long) x + height);
+		int colEnd = (int) Math.min(d.width, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			for (int j = Math.max(0, y); j < colEnd; ++j) {
+				if (getState(i, j)) {
+					clear(i, j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bring cells of the grid to life at random, other cells are left as they are
+	 * cells are visited in row order with one random number each, so a seed gives
+	 * the same board on every engine
+	 * @param density: chance of a cell coming alive, 0 to 1
+	 * @param seed: random seed
+	 */
+	default void fillRandom(double density, long seed) {
+		Dimension d = getDimension();
+		Random random = new Random(seed);
+		for (int i = 0; i < d.height; ++i) {
+			for (int j = 0; j < d.width; ++j) {
+				if (random.nextDouble() < density && !getState(i, j)) {
+					toggle(i, j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set many cells to the same state, cells outside of the grid are skipped
+	 * @param xs: rows
+	 * @param ys: columns
+	 * @param length: number of coordinates used from the arrays
+	 * @param alive: state to set
+	 */
+	default void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		Dimension d = getDimension();
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < d.height && y < d.width && getState(x, y) != alive) {
+				toggle(x, y);
+			}
+		}
+	}
+
 	/**
 	 * Get point coordinates for all live cells only
 	 * @return array of points
 	 */
 	ArrayList<Point> getAlivePoints();
 
+	/**
+	 * Visit all live cells in place, nothing is allocated
+	 * cells are visited in row order, except by engines that only store live cells
+	 * @param visitor: called once per live cell
+	 */
+	void forEachAlive(CellVisitor visitor);
+
 	/**
 	 * Get cells, live or dead
 	 * @return array of cells
@@ -63,8 +165,57 @@ public interface Cells {
 	 */
 	void step();
 
+	/**
+	 * Step the given number of generations ahead
+	 * engines that can skip ahead faster than one generation at a time override this
+	 * @param generations: number of generations to advance
+	 */
+	default void stepBy(long generations) {
+		for (long i = 0; i < generations; ++i) {
+			step();
+		}
+	}
+
+	/**
+	 * Count live cells without building a list of them
+	 * the default visits every live cell with a one element counter, engines that keep count
+	 * as cells change override this and allocate nothing
+	 * @return live cells
+	 */
+	default long getPopulation() {
+		long[] population = new long[1];
+		forEachAlive((x, y) -> ++population[0]);
+		return population[0];
+	}
+
+	/**
+	 * Zobrist hash of the live cells, equal boards have equal hashes on any engine, see Zobrist
+	 * the default visits every live cell, engines that keep it up to date as cells change override this
+	 * @return XOR of the keys of all live cells
+	 */
+	default long getHash() {
+		return Zobrist.hash(this);
+	}
+
+	/**
+	 * Set the rule cells are stepped by, B3/S23 until set
+	 * @param rule: life-like rule
+	 * @throws IllegalArgumentException if the engine can't run the rule
+	 */
+	void setRule(Rule rule);
+
+	/**
+	 * @return rule cells are stepped by
+	 */
+	Rule getRule();
+
 	/**
 	 * Toggle teleporting of cells across grid boundaries
 	 */
 	void toggleTeleport();
+
+	/**
+	 * @return true if cells teleport across grid boundaries
+	 */
+	boolean isTeleport();
 }
@@ -1,6 +1,9 @@
 import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Kevin Guerra kevingnet@gmail.com
@@ -8,12 +11,35 @@ import java.util.ArrayList;
  *
  */
 public class CellsImpl implements Cells {
+	//cells are grouped into square tiles, only tiles near a change are stepped
+	private static final int TILE_SIZE = 8;
 	private ArrayList<Cell> cells = new ArrayList<>(0);
 	private ArrayList<Cell> cellsBuffer = new ArrayList<>(0);
 	private Dimension dimensions = null;
 	private int columns = 0;
 	private int rows = 0;
 	private boolean teleport = true;
+	private Rule rule = Rule.CONWAY;
+	//next state by state * 9 + live neighbors, from the rule
+	private byte[] table = Rule.CONWAY.table();
+	private int tileRows = 0;
+	private int tileColumns = 0;
+	private boolean[] active = new boolean[0];
+	private boolean[] nextActive = new boolean[0];
+	//Zobrist hash of the live cells, updated by the key of every cell that changes
+	private long hash = 0;
+	//hash changes of a step by tile row, so bands of rows write their own entries
+	private long[] rowHashes = new long[0];
+	//live cells, and births, deaths and cells evaluated in a step by tile row
+	private long population = 0;
+	private long[] rowBirths = new long[0];
+	private long[] rowDeaths = new long[0];
+	private long[] rowEvaluated = new long[0];
+	//receives the counts of every step, null if nobody is watching
+	private StepMetrics metrics = null;
+	//pool for stepping bands of rows in parallel, null when stepping on the calling thread
+	private ForkJoinPool pool = null;
+	private final RowBandTask.RowBand stepBand = this::stepTiles;
 
 	/* (non-Javadoc)
 	 * @see Cells#resize(int, int)
@@ -36,38 +62,160 @@ public class CellsImpl implements Cells {
 	 * @see Cells#step()
 	 * Calculate next generation of cells
 	 * Algorithm:
+	 *  - only visit active tiles, those whose neighborhood changed last generation
 	 *  - get both cells from the two buffers, both have the exact same location
-	 *  - count live neighbors, regardless of state, somewhat optimal depending on state
-	 *  - apply game rules: liveCell (2 or 3 liveNeighbors) = live, deadCell (3 liveNeighbors) = live
-	 *  - clear cell buffer, by killing all cells
+	 *  - count live neighbors, regardless of state
+	 *  - apply the rule, one lookup by state and live neighbors, B3/S23 unless set
+	 *  - write the buffer cell state, which also clears it, only within active tiles
+	 *  - a tile with any changed cell activates itself and its neighbor tiles for the next generation
+	 *  - the keys of changed cells are XORed into the board hash, by tile row
+	 *  - births, deaths and cells evaluated are counted by tile row too, and added up for the metrics
 	 *  - swap buffers, readying for next step
+	 * inactive tiles are identical in both buffers, so they need no work at all
+	 * with parallelism set, bands of tile rows are run on the pool
 	 */
 	@Override
 	public void step() {
-		for (int i = 0; i < this.cells.size(); ++i) {
-			Cell cp = this.cells.get(i);
-			Cell bcp = this.cellsBuffer.get(i);
-			// count neighbor states, location is cached as adjacent cells contain references
-			int liveNeighborsCount = getNeighborCount(cp);
-			if (cp.isAlive()) {
-				if (liveNeighborsCount == 2 || liveNeighborsCount == 3) {
-					bcp.revive();
-				}
-			} else if (cp.isDead()) {
-				if (liveNeighborsCount == 3) {
-					bcp.revive();
-				}
-			}
+		long begin = this.metrics != null ? System.nanoTime() : 0;
+		Arrays.fill(this.nextActive, false);
+		if (this.pool != null) {
+			RowBandTask.invoke(this.pool, this.stepBand, this.tileRows);
+		} else {
+			stepTiles(0, this.tileRows);
 		}
-		// clear grid = kill all cells
-		// we don't kill them before, since it would cause neighbor miscalculations
-		for (Cell cp : this.cells) {
-			cp.kill();
+		long births = 0;
+		long deaths = 0;
+		long evaluated = 0;
+		for (int tr = 0; tr < this.tileRows; ++tr) {
+			this.hash ^= this.rowHashes[tr];
+			this.rowHashes[tr] = 0;
+			births += this.rowBirths[tr];
+			deaths += this.rowDeaths[tr];
+			evaluated += this.rowEvaluated[tr];
+			this.rowBirths[tr] = 0;
+			this.rowDeaths[tr] = 0;
+			this.rowEvaluated[tr] = 0;
 		}
+		this.population += births - deaths;
 		// swap arrays for next iteration
 		ArrayList<Cell> tmp = this.cellsBuffer;
 		this.cellsBuffer = this.cells;
 		this.cells = tmp;
+		boolean[] tmpActive = this.active;
+		this.active = this.nextActive;
+		this.nextActive = tmpActive;
+		if (this.metrics != null) {
+			this.metrics.record(this.population, births, deaths, evaluated, System.nanoTime() - begin);
+		}
+	}
+
+	/**
+	 * Calculate next generation for a band of tile rows into the cell buffer
+	 * bands only write their own cells in the buffer, so they can run concurrently
+	 * @param from: first tile row
+	 * @param to: last tile row, exclusive
+	 */
+	private void stepTiles(int from, int to) {
+		for (int tr = from; tr < to; ++tr) {
+			for (int tc = 0; tc < this.tileColumns; ++tc) {
+				if (this.active[(tr * this.tileColumns) + tc] && stepTile(tr, tc)) {
+					activate(this.nextActive, tr, tc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculate next generation for the cells of one tile
+	 * @param tr: tile row
+	 * @param tc: tile column
+	 * @return true if any cell changed state
+	 */
+	private boolean stepTile(int tr, int tc) {
+		boolean changed = false;
+		long changes = 0;
+		int births = 0;
+		int deaths = 0;
+		int rowEnd = Math.min(this.rows, (tr + 1) * TILE_SIZE);
+		int colEnd = Math.min(this.columns, (tc + 1) * TILE_SIZE);
+		for (int i = tr * TILE_SIZE; i < rowEnd; ++i) {
+			for (int j = tc * TILE_SIZE; j < colEnd; ++j) {
+				Cell cp = this.cells.get((i * this.columns) + j);
+				Cell bcp = this.cellsBuffer.get((i * this.columns) + j);
+				// count neighbor states, location is cached as adjacent cells contain references
+				int liveNeighborsCount = getNeighborCount(cp);
+				boolean alive = this.table[((cp.isAlive() ? 1 : 0) * 9) + liveNeighborsCount] != 0;
+				if (alive) {
+					bcp.revive();
+				} else {
+					bcp.kill();
+				}
+				if (alive != cp.isAlive()) {
+					changed = true;
+					changes ^= Zobrist.key(i, j);
+					if (alive) {
+						++births;
+					} else {
+						++deaths;
+					}
+				}
+			}
+		}
+		this.rowHashes[tr] ^= changes;
+		this.rowBirths[tr] += births;
+		this.rowDeaths[tr] += deaths;
+		this.rowEvaluated[tr] += (rowEnd - (tr * TILE_SIZE)) * (colEnd - (tc * TILE_SIZE));
+		return changed;
+	}
+
+	/**
+	 * Mark a tile and its eight neighbor tiles as active
+	 * @param flags: active tile flags
+	 * @param tr: tile row
+	 * @param tc: tile column
+	 */
+	private void activate(boolean[] flags, int tr, int tc) {
+		for (int r = tr - 1; r <= tr + 1; ++r) {
+			int row = r;
+			if (this.teleport) {
+				row = (row + this.tileRows) % this.tileRows;
+			} else if (row < 0 || row >= this.tileRows) {
+				continue;
+			}
+			for (int c = tc - 1; c <= tc + 1; ++c) {
+				int col = c;
+				if (this.teleport) {
+					col = (col + this.tileColumns) % this.tileColumns;
+				} else if (col < 0 || col >= this.tileColumns) {
+					continue;
+				}
+				flags[(row * this.tileColumns) + col] = true;
+			}
+		}
+	}
+
+	/**
+	 * Mark the tiles around a cell as active after it was changed from outside step
+	 * @param x
+	 * @param y
+	 */
+	private void activateCell(int x, int y) {
+		activate(this.active, x / TILE_SIZE, y / TILE_SIZE);
+	}
+
+	/**
+	 * Set the number of threads used to step, rows are split into bands
+	 * and processed by a fork join pool
+	 * @param parallelism: number of threads, 1 or less steps on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		if (parallelism > 1) {
+			this.pool = new ForkJoinPool(parallelism);
+		}
 	}
 
 	@Override
@@ -76,225 +224,316 @@ public class CellsImpl implements Cells {
 		recalculate();
 	}
 
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * every tile is stepped next, stable tiles may not be stable under the new rule
+	 */
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		this.rule = r;
+		this.table = r.table();
+		Arrays.fill(this.active, true);
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getPopulation()
+	 * kept up to date by every step and edit, nothing is visited
+	 */
+	@Override
+	public long getPopulation() {
+		return this.population;
+	}
+
 	/**
-	 * Recalculate engine cell grid
-	 * use double buffer, so as to avoid unnecessary memory allocation and deallocation
+	 * Report the counts of every step, on the stepping thread
+	 * @param m: metrics to record into, null to stop
+	 */
+	public void setMetrics(StepMetrics m) {
+		this.metrics = m;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getHash()
+	 * kept up to date by every step and edit, nothing is visited
+	 */
+	@Override
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Recalculate engine cell grid after a resize or a change of edges
+	 * cells are kept where the old and new grids overlap, only the rest is created
 	 * Algorithm:
-	 *   - save current alive cells into array
-	 *   - resize cell buffer and add cells set to dead initially
-	 *   - for each cell save neighbor locations
-	 *   - clone array, both contain only dead cells
-	 *   - copy saved alive cells into cell array
-	 *   - save current dimensions
-	 *   - restored saved cells into resized array
+	 *   - reshape both buffers, copying overlapping rows in bulk, dropping cells outside
+	 *     the new grid and adding dead cells where it grew
+	 *   - neighbors of a cell away from the edges don't depend on the grid size, so only
+	 *     new cells and cells on the old or new edges get their neighbors recalculated
+	 *   - both buffers share the neighbor lists
+	 *   - mark every tile active, so the first step visits the whole grid
+	 * edge cells are always recalculated, which also handles toggling teleport
 	 */
 	private void recalculate() {
-		// save alive cells
-		ArrayList<Cell> alive = new ArrayList<>(0);
-		for (Cell nc : this.cells) {
-			if (nc.isAlive()) {
-				alive.add(nc);
-			}
-		}
-
 		int c = this.dimensions.width;
 		int r = this.dimensions.height;
-		this.cellsBuffer = new ArrayList<>(c * r);
-		// initialize array, identity is set to dead, so first step is recalculated
-		Cell cp = null;
-		Point p = null;
+		int oldColumns = this.columns;
+		int oldRows = this.rows;
+		this.cellsBuffer = reshape(this.cellsBuffer, oldColumns, oldRows, c, r);
+		this.cells = reshape(this.cells, oldColumns, oldRows, c, r);
+		this.columns = c;
+		this.rows = r;
+
+		// calculate and set neighbors
 		for (int i = 0; i < r; ++i) {
 			for (int j = 0; j < c; ++j) {
-				p = new Point(i, j);
-				cp = new Cell(p);
-				this.cellsBuffer.add(cp);
+				boolean kept = i < oldRows && j < oldColumns;
+				if (kept && !isEdge(i, j, c, r) && !isEdge(i, j, oldColumns, oldRows)) {
+					continue;
+				}
+				ArrayList<Point> neighbors;
+				if (this.teleport) {
+					neighbors = calculateNeighborsStiched(i, j);
+				} else {
+					neighbors = calculateNeighbors(i, j);
+				}
+				this.cellsBuffer.get((i * c) + j).setNeighbors(neighbors);
+				this.cells.get((i * c) + j).setNeighbors(neighbors);
 			}
 		}
-		// calculate and set neighbors
-		if (this.teleport) {
-			calculateNeighborsStiched();
-		} else {
-			calculateNeighbors();
+
+		// every tile starts active, so the first step visits the whole grid
+		this.tileRows = (r + TILE_SIZE - 1) / TILE_SIZE;
+		this.tileColumns = (c + TILE_SIZE - 1) / TILE_SIZE;
+		if (this.active.length != this.tileRows * this.tileColumns) {
+			this.active = new boolean[this.tileRows * this.tileColumns];
+			this.nextActive = new boolean[this.tileRows * this.tileColumns];
 		}
-		
-		//clone cell array
-		this.cells = new ArrayList<>(c * r);
-		for (Cell bcp : this.cellsBuffer) {
-			this.cells.add(new Cell(bcp));
+		Arrays.fill(this.active, true);
+		this.rowHashes = new long[this.tileRows];
+		this.rowBirths = new long[this.tileRows];
+		this.rowDeaths = new long[this.tileRows];
+		this.rowEvaluated = new long[this.tileRows];
+		// cells outside of a smaller grid were dropped
+		long[] count = new long[1];
+		this.hash = 0;
+		forEachAlive((x, y) -> {
+			this.hash ^= Zobrist.key(x, y);
+			++count[0];
+		});
+		this.population = count[0];
+	}
+
+	/**
+	 * Resize a buffer of cells from old to new dimensions
+	 * with the same width rows are only removed or appended, otherwise the
+	 * overlapping part of each row is copied over as a block of references
+	 * @param buffer: cells in row order
+	 * @param oldColumns
+	 * @param oldRows
+	 * @param c: new columns
+	 * @param r: new rows
+	 * @return buffer with the new dimensions, possibly the same list
+	 */
+	private static ArrayList<Cell> reshape(ArrayList<Cell> buffer, int oldColumns, int oldRows, int c, int r) {
+		if (c == oldColumns) {
+			if (r < oldRows) {
+				buffer.subList(r * c, buffer.size()).clear();
+			} else {
+				buffer.ensureCapacity(r * c);
+				addDeadCells(buffer, oldRows, r, 0, c);
+			}
+			return buffer;
+		}
+		ArrayList<Cell> resized = new ArrayList<>(c * r);
+		int keepColumns = Math.min(c, oldColumns);
+		for (int i = 0; i < r; ++i) {
+			int from = 0;
+			if (i < oldRows) {
+				resized.addAll(buffer.subList(i * oldColumns, (i * oldColumns) + keepColumns));
+				from = keepColumns;
+			}
+			addDeadCells(resized, i, i + 1, from, c);
 		}
+		return resized;
+	}
 
-		this.columns = c;
-		this.rows = r;
-		// copy old to current
-		for (Cell ocp : alive) {
-			Point op = ocp.getLocation();
-			cp = this.cells.get((op.x * this.columns) + op.y);
-			cp.revive();
+	/**
+	 * Append new dead cells for a block of rows and columns
+	 */
+	private static void addDeadCells(ArrayList<Cell> buffer, int fromRow, int toRow, int fromColumn, int toColumn) {
+		for (int i = fromRow; i < toRow; ++i) {
+			for (int j = fromColumn; j < toColumn; ++j) {
+				buffer.add(new Cell(new Point(i, j)));
+			}
 		}
 	}
+
+	/**
+	 * A cell is on the edge if any of its neighbors would be outside of the grid
+	 */
+	private static boolean isEdge(int i, int j, int c, int r) {
+		return i == 0 || j == 0 || i >= r - 1 || j >= c - 1;
+	}
 	
 	//allows teleporting cells from one edge to the opposite one
-	private void calculateNeighborsStiched() {
+	private ArrayList<Point> calculateNeighborsStiched(int i, int j) {
 		int c = this.dimensions.width;
 		int r = this.dimensions.height;
 		int col = 0;
 		int row = 0;
-		for (Cell ncp : this.cellsBuffer) {
-			Point np = ncp.getLocation();
-			int i = np.x;
-			int j = np.y;
-
-			ArrayList<Point> neighbors = new ArrayList<>(8);
-			// go around the cell...
-			// top
-			row = i - 1;
-			col = j;
-			if (row < 0) {
-				row = r - 1;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// bottom
-			row = i + 1;
-			col = j;
-			if (row >= r) {
-				row = 0;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// top left
-			row = i - 1;
-			col = j - 1;
-			if (row < 0) {
-				row = r - 1;
-			}
-			if (col < 0) {
-				col = c - 1;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// top right
-			row = i - 1;
-			col = j + 1;
-			if (row < 0) {
-				row = r - 1;
-			}
-			if (col >= c) {
-				col = 0;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// bottom left
-			row = i + 1;
-			col = j - 1;
-			if (row >= r) {
-				row = 0;
-			}
-			if (col < 0) {
-				col = c - 1;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// bottom right
-			row = i + 1;
-			col = j + 1;
-			if (row >= r) {
-				row = 0;
-			}
-			if (col >= c) {
-				col = 0;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// left
-			row = i;
-			col = j - 1;
-			if (col < 0) {
-				col = c - 1;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			// right
-			row = i;
-			col = j + 1;
-			if (col >= c) {
-				col = 0;
-			}
-			addNeighbor(ncp, row, col, c, neighbors);
-			ncp.setNeighbors(neighbors);
+		ArrayList<Point> neighbors = new ArrayList<>(8);
+		// go around the cell...
+		// top
+		row = i - 1;
+		col = j;
+		if (row < 0) {
+			row = r - 1;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// bottom
+		row = i + 1;
+		col = j;
+		if (row >= r) {
+			row = 0;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// top left
+		row = i - 1;
+		col = j - 1;
+		if (row < 0) {
+			row = r - 1;
+		}
+		if (col < 0) {
+			col = c - 1;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// top right
+		row = i - 1;
+		col = j + 1;
+		if (row < 0) {
+			row = r - 1;
+		}
+		if (col >= c) {
+			col = 0;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// bottom left
+		row = i + 1;
+		col = j - 1;
+		if (row >= r) {
+			row = 0;
+		}
+		if (col < 0) {
+			col = c - 1;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// bottom right
+		row = i + 1;
+		col = j + 1;
+		if (row >= r) {
+			row = 0;
+		}
+		if (col >= c) {
+			col = 0;
+		}
+		addNeighbor(row, col, c, neighbors);
+		// left
+		row = i;
+		col = j - 1;
+		if (col < 0) {
+			col = c - 1;
 		}
+		addNeighbor(row, col, c, neighbors);
+		// right
+		row = i;
+		col = j + 1;
+		if (col >= c) {
+			col = 0;
+		}
+		addNeighbor(row, col, c, neighbors);
+		return neighbors;
 	}
 
 	//cells are confined to the grid without teleporting capability
-	private void calculateNeighbors() {
+	private ArrayList<Point> calculateNeighbors(int i, int j) {
 		int c = this.dimensions.width;
 		int r = this.dimensions.height;
 		int col = 0;
 		int row = 0;
-		for (Cell ncp : this.cellsBuffer) {
-			Point np = ncp.getLocation();
-			int i = np.x;
-			int j = np.y;
-
-			ArrayList<Point> neighbors = new ArrayList<>(8);
-			// go around the cell...
-			// top
-			row = i - 1;
-			col = j;
-			if (row >= 0) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// bottom
-			row = i + 1;
-			col = j;
-			if (row < r) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// top left
-			row = i - 1;
-			col = j - 1;
-			if (col >= 0 && row >= 0) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// top right
-			row = i - 1;
-			col = j + 1;
-			if (col < c && row >= 0) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// bottom left
-			row = i + 1;
-			col = j - 1;
-			if (col >= 0 && row < r) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// bottom right
-			row = i + 1;
-			col = j + 1;
-			if (col < c && row < r) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// left
-			row = i;
-			col = j - 1;
-			if (col >= 0) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			// right
-			row = i;
-			col = j + 1;
-			if (col < c) {
-				addNeighbor(ncp, row, col, c, neighbors);
-			}
-			ncp.setNeighbors(neighbors);
+		ArrayList<Point> neighbors = new ArrayList<>(8);
+		// go around the cell...
+		// top
+		row = i - 1;
+		col = j;
+		if (row >= 0) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// bottom
+		row = i + 1;
+		col = j;
+		if (row < r) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// top left
+		row = i - 1;
+		col = j - 1;
+		if (col >= 0 && row >= 0) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// top right
+		row = i - 1;
+		col = j + 1;
+		if (col < c && row >= 0) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// bottom left
+		row = i + 1;
+		col = j - 1;
+		if (col >= 0 && row < r) {
+			addNeighbor(row, col, c, neighbors);
 		}
+		// bottom right
+		row = i + 1;
+		col = j + 1;
+		if (col < c && row < r) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// left
+		row = i;
+		col = j - 1;
+		if (col >= 0) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		// right
+		row = i;
+		col = j + 1;
+		if (col < c) {
+			addNeighbor(row, col, c, neighbors);
+		}
+		return neighbors;
 	}
 	
-	private void addNeighbor(Cell ncp, int row, int col, int width, ArrayList<Point> neighbors) {
+	private void addNeighbor(int row, int col, int width, ArrayList<Point> neighbors) {
 		Cell cp = this.cellsBuffer.get((row * width) + col);
-		Point np = ncp.getLocation();
-		np = cp.getLocation();
-		neighbors.add(np);
+		neighbors.add(cp.getLocation());
 	}
 
 	/**
 	 * Count the number of neighbors that are alive
-	 * we use two separate loops depending on state, since for dead cells
-	 * we attempt to count the max, whereas for live cells we only need to
-	 * know up to four
+	 * all eight are counted, rules other than B3/S23 tell apart counts above four
 	 * TODO: optimize by caching or memoizing the counting operation
 	 * @param cell: cell in the center of group
 	 * @return count of alive neighbors
@@ -302,22 +541,10 @@ public class CellsImpl implements Cells {
 	private int getNeighborCount(Cell cell) {
 		ArrayList<Point> neighbors = cell.getNeighbors();
 		int liveNeighborsCount = 0;
-		if (cell.isAlive()) {
-			for (Point np : neighbors) {
-				Cell ncp = this.cells.get((np.x * this.columns) + np.y);
-				if (ncp.isAlive()) {
-					liveNeighborsCount++;
-					if (liveNeighborsCount == 4) {
-						break;
-					}
-				}
-			}
-		} else if (cell.isDead()) {
-			for (Point np : neighbors) {
-				Cell ncp = this.cells.get((np.x * this.columns) + np.y);
-				if (ncp.isAlive()) {
-					liveNeighborsCount++;
-				}
+		for (Point np : neighbors) {
+			Cell ncp = this.cells.get((np.x * this.columns) + np.y);
+			if (ncp.isAlive()) {
+				liveNeighborsCount++;
 			}
 		}
 		return liveNeighborsCount;
@@ -333,21 +560,33 @@ public class CellsImpl implements Cells {
 			Cell cp = this.cells.get((x * this.columns) + y);
 			if (cp.isDead()) {
 				cp.revive();
+				++this.population;
 			} else if (cp.isAlive()) {
 				cp.kill();
+				--this.population;
 			}
+			this.hash ^= Zobrist.key(x, y);
+			activateCell(x, y);
 		} else {
 			System.out.print("Cells.toggle invalid coordinate!\n");
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see Cells#clear()
+	 * Kill every cell in both buffers, the grid itself is kept
+	 */
 	@Override
 	public void clear() {
-		this.cells.clear();
-		this.cellsBuffer.clear();
-		this.cells =  new ArrayList<>(0);
-		this.cellsBuffer =  new ArrayList<>(0);
-		recalculate();
+		for (Cell cp : this.cells) {
+			cp.kill();
+		}
+		for (Cell bcp : this.cellsBuffer) {
+			bcp.kill();
+		}
+		this.hash = 0;
+		this.population = 0;
+		Arrays.fill(this.active, true);
 	}
 
 	/* (non-Javadoc)
@@ -358,12 +597,100 @@ public class CellsImpl implements Cells {
 	public void clear(int x, int y) {
 		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
 			Cell cp = this.cells.get((x * this.columns) + y);
+			if (cp.isAlive()) {
+				this.hash ^= Zobrist.key(x, y);
+				--this.population;
+			}
 			cp.kill();
+			activateCell(x, y);
 		} else {
 			System.out.print("Cells.clear invalid coordinate!\n");
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 * cells are reached directly, only tiles around changed cells are activated
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			int bits = (i - x) * w;
+			for (int j = from; j < to; ++j) {
+				int b = j - y;
+				setAlive(i, j, (bitmap[bits + (b >>> 6)] & (1L << b)) != 0);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int colEnd = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			for (int j = Math.max(0, y); j < colEnd; ++j) {
+				setAlive(i, j, false);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < this.rows; ++i) {
+			for (int j = 0; j < this.columns; ++j) {
+				if (random.nextDouble() < density) {
+					setAlive(i, j, true);
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+				setAlive(x, y, alive);
+			}
+		}
+	}
+
+	/**
+	 * Set a cell known to be on the grid, tiles are only activated when it changes
+	 * @param x
+	 * @param y
+	 * @param alive
+	 */
+	private void setAlive(int x, int y, boolean alive) {
+		Cell cp = this.cells.get((x * this.columns) + y);
+		if (cp.isAlive() != alive) {
+			if (alive) {
+				cp.revive();
+				++this.population;
+			} else {
+				cp.kill();
+				--this.population;
+			}
+			this.hash ^= Zobrist.key(x, y);
+			activateCell(x, y);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see Cells#getState(int, int)
 	 * Get cell state
@@ -379,6 +706,22 @@ public class CellsImpl implements Cells {
 		return false;
 	}
 
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * cells are read by index, without an iterator
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		ArrayList<Cell> current = this.cells;
+		int c = this.columns;
+		int n = Math.min(current.size(), this.rows * c);
+		for (int k = 0; k < n; ++k) {
+			if (current.get(k).isAlive()) {
+				visitor.visit(k / c, k % c);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see Cells#get()
 	 * Build array with live cell points so cells can be drawn
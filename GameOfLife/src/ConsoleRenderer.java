@@ -0,0 +1,182 @@
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Draws the board as text on an ANSI terminal, each frame built in one reusable buffer
+ * and written with a single channel write
+ * The screen is cleared only when the board size changes, later frames overwrite it in place,
+ * and with diffs on only the cells that changed are written, each run after a cursor move
+ * a diff longer than the whole frame is written as the whole frame
+ */
+public class ConsoleRenderer {
+	private static final byte[] TITLE = "Conway's Game of Life\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CLEAR = "\033[H\033[2J".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HOME = "\033[H".getBytes(StandardCharsets.US_ASCII);
+	private static final byte ALIVE = '0';
+	private static final byte DEAD = '.';
+	//screen row of the first board row, 1 based, after the title and top bar
+	private static final int FIRST_ROW = 3;
+	//screen column of the first board column, after "| "
+	private static final int FIRST_COLUMN = 3;
+	//longest cursor move, ESC [ row ; column H
+	private static final int MOVE_LENGTH = 24;
+
+	private final WritableByteChannel channel;
+	private final boolean diffs;
+	private int columns = -1;
+	private int rows = -1;
+	//set from other threads to clear and draw it all on the next frame
+	private volatile boolean stale = true;
+	//board shown on screen, one byte per cell
+	private byte[] shown = new byte[0];
+	//board being drawn
+	private byte[] board = new byte[0];
+	private ByteBuffer buffer = ByteBuffer.allocate(0);
+	private final CellVisitor marker = this::mark;
+
+	/**
+	 * @param channel: terminal to write to
+	 * @param diffs: write only the cells that changed after the first frame
+	 */
+	public ConsoleRenderer(WritableByteChannel channel, boolean diffs) {
+		this.channel = channel;
+		this.diffs = diffs;
+	}
+
+	/**
+	 * Draw the board, only what changed on screen when diffs are on
+	 * @param cells: engine to draw, not stepped meanwhile
+	 */
+	public void render(Cells cells) {
+		Dimension size = cells.getDimension();
+		if (size == null) {
+			return;
+		}
+		boolean resized = this.stale || size.width != this.columns || size.height != this.rows;
+		if (resized) {
+			this.stale = false;
+			resize(size.width, size.height);
+		}
+		Arrays.fill(this.board, DEAD);
+		cells.forEachAlive(this.marker);
+		this.buffer.clear();
+		if (resized || !this.diffs || !writeDiffs()) {
+			this.buffer.clear();
+			writeFrame(resized);
+		}
+		byte[] tmp = this.shown;
+		this.shown = this.board;
+		this.board = tmp;
+		this.buffer.flip();
+		try {
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Forget what is on screen, the next frame clears and draws it all
+	 */
+	public void reset() {
+		this.stale = true;
+	}
+
+	/**
+	 * Size the boards and the buffer, which holds a whole frame
+	 */
+	private void resize(int c, int r) {
+		this.columns = c;
+		this.rows = r;
+		this.shown = new byte[c * r];
+		this.board = new byte[c * r];
+		int bars = 2 * (c + 5);
+		int frame = CLEAR.length + TITLE.length + bars + (r * (c + 5));
+		if (this.buffer.capacity() < frame) {
+			this.buffer = ByteBuffer.allocate(frame);
+		}
+	}
+
+	private void mark(int x, int y) {
+		this.board[(x * this.columns) + y] = ALIVE;
+	}
+
+	/**
+	 * Whole frame, the same layout as always, from the top left corner of the screen
+	 * @param clear: clear the screen first, when the frame may be smaller than the last
+	 */
+	private void writeFrame(boolean clear) {
+		ByteBuffer b = this.buffer;
+		b.put(clear ? CLEAR : HOME);
+		b.put(TITLE);
+		bar((byte) '_');
+		for (int i = 0; i < this.rows; ++i) {
+			b.put((byte) '|').put((byte) ' ');
+			b.put(this.board, i * this.columns, this.columns);
+			b.put((byte) ' ').put((byte) '|').put((byte) '\n');
+		}
+		bar((byte) '-');
+	}
+
+	private void bar(byte c) {
+		for (int j = 0; j < this.columns + 4; ++j) {
+			this.buffer.put(c);
+		}
+		this.buffer.put((byte) '\n');
+	}
+
+	/**
+	 * Runs of changed cells, each after a cursor move, then the cursor below the board
+	 * @return false if the diff doesn't fit in a whole frame
+	 */
+	private boolean writeDiffs() {
+		ByteBuffer b = this.buffer;
+		int limit = b.capacity() - MOVE_LENGTH;
+		for (int i = 0; i < this.rows; ++i) {
+			int row = i * this.columns;
+			int j = 0;
+			while (j < this.columns) {
+				if (this.board[row + j] == this.shown[row + j]) {
+					++j;
+					continue;
+				}
+				int end = j + 1;
+				while (end < this.columns && this.board[row + end] != this.shown[row + end]) {
+					++end;
+				}
+				if (b.position() + MOVE_LENGTH + (end - j) > limit) {
+					return false;
+				}
+				move(FIRST_ROW + i, FIRST_COLUMN + j);
+				b.put(this.board, row + j, end - j);
+				j = end;
+			}
+		}
+		move(FIRST_ROW + this.rows + 1, 1);
+		return true;
+	}
+
+	private void move(int row, int column) {
+		ByteBuffer b = this.buffer;
+		b.put((byte) 033).put((byte) '[');
+		number(row);
+		b.put((byte) ';');
+		number(column);
+		b.put((byte) 'H');
+	}
+
+	private void number(int n) {
+		if (n >= 10) {
+			number(n / 10);
+		}
+		this.buffer.put((byte) ('0' + (n % 10)));
+	}
+}
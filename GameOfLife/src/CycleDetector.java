@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Finds when a board starts repeating, from the Zobrist hash of each generation, see Cells.getHash
+ * The hashes of the last generations are kept in a bounded ring, a hash already in the ring means
+ * the board repeats, with a period of the generations between the two, 1 for a still life
+ * The first repeat found is the generation the board settled at plus the period, so the generation
+ * it settled at is exact, as long as the period fits in the ring
+ * A small table of counts by the low bits of the hash tells most new hashes apart without
+ * searching the ring
+ */
+public final class CycleDetector {
+	//generations remembered unless told otherwise
+	public static final int DEFAULT_HISTORY = 1024;
+	private static final int FILTER_BITS = 12;
+	private static final int FILTER_MASK = (1 << FILTER_BITS) - 1;
+
+	private final long[] hashes;
+	private final long[] generations;
+	//ring entries by hash & FILTER_MASK
+	private final short[] filter = new short[1 << FILTER_BITS];
+	//next ring slot and number of slots used
+	private int next = 0;
+	private int size = 0;
+	//generation the board settled at and its period, 0 until a repeat is found
+	private long start = 0;
+	private long period = 0;
+
+	/**
+	 * @param history: generations remembered, the longest period found
+	 */
+	public CycleDetector(int history) {
+		if (history < 1 || history > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("history must be 1 to " + Short.MAX_VALUE + " generations");
+		}
+		this.hashes = new long[history];
+		this.generations = new long[history];
+	}
+
+	/**
+	 * Remember the board of a generation, generations are recorded in increasing order
+	 * once a repeat is found nothing more is recorded
+	 * @param generation: generation number
+	 * @param hash: board hash
+	 * @return true if the board repeats
+	 */
+	public boolean record(long generation, long hash) {
+		if (this.period > 0) {
+			return true;
+		}
+		int bucket = (int) hash & FILTER_MASK;
+		if (this.filter[bucket] > 0) {
+			for (int k = 0; k < this.size; ++k) {
+				if (this.hashes[k] == hash) {
+					this.start = this.generations[k];
+					this.period = generation - this.start;
+					return true;
+				}
+			}
+		}
+		if (this.size == this.hashes.length) {
+			--this.filter[(int) this.hashes[this.next] & FILTER_MASK];
+		} else {
+			++this.size;
+		}
+		this.hashes[this.next] = hash;
+		this.generations[this.next] = generation;
+		++this.filter[bucket];
+		this.next = (this.next + 1) % this.hashes.length;
+		return false;
+	}
+
+	/**
+	 * Forget all generations, after the board or the rule changed other than by stepping
+	 */
+	public void reset() {
+		this.next = 0;
+		this.size = 0;
+		this.start = 0;
+		this.period = 0;
+		Arrays.fill(this.filter, (short) 0);
+	}
+
+	/**
+	 * @return true once the board repeats
+	 */
+	public boolean isCycle() {
+		return this.period > 0;
+	}
+
+	/**
+	 * @return generations between repeats, 1 for a still life, 0 until the board repeats
+	 */
+	public long getPeriod() {
+		return this.period;
+	}
+
+	/**
+	 * @return first generation of the cycle, the one the board settled at
+	 */
+	public long getStart() {
+		return this.start;
+	}
+
+	/**
+	 * Generations left to step to reach the board of a later generation, once the board repeats
+	 * every whole period is skipped
+	 * @param generation: generation of the board now, at or after the start of the cycle
+	 * @param target: generation wanted
+	 * @return generations to step, less than the period
+	 */
+	public long remaining(long generation, long target) {
+		if (this.period == 0) {
+			throw new IllegalStateException("no cycle found yet");
+		}
+		return Math.max(0, target - generation) % this.period;
+	}
+}
@@ -2,36 +2,69 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 
+import javax.management.JMException;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.ConcurrentModificationException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Random;
 
 /**
  * @author Kevin Guerra kevingnet@gmail.com
  * Panel upon which to draw the grid, reacts to various events, draws cells, 
- * and interacts directly with engine, manages continues step thread
+ * and interacts directly with engine, steps it continuously through a SimulationScheduler
+ * cells are drawn from the generation last published, never from the engine itself
+ * The board keeps its size when the window is resized, the panel is a viewport onto it
+ * which is dragged to pan and zoomed with the mouse wheel
  */
-public class GameGrid extends JPanel implements ComponentListener, MouseListener, Runnable {
+public class GameGrid extends JPanel
+		implements ComponentListener, MouseListener, MouseMotionListener, MouseWheelListener, SimulationScheduler.Simulation {
 	private static final long serialVersionUID = 589879760624008850L;
 	//private static final Color cellColor = Color.darkGray;
 	private static final Color cellColor = new Color(66, 134, 244);
 	
 	private static final Color gridColor = Color.lightGray;
+	private static final Color deadColor = new Color(238, 238, 238);
+	//outside of the board
+	private static final Color backgroundColor = Color.gray;
 	private static final int BLOCK_SIZE = 14;
 	private static final int SPEED = 12;
-	private int speed = SPEED;
 
-	private Dimension dimensions = null;
 	private final Cells cells;
-	private boolean running = false;
+	//steps the engine on its own thread, at SPEED frames a second to begin with
+	private final SimulationScheduler scheduler = new SimulationScheduler(this, SPEED);
 	private boolean consoleOutput = false;
+	//draws the board as text, a frame per write and only the cells that changed
+	private final ConsoleRenderer console = new ConsoleRenderer(Channels.newChannel(System.out), true);
+	//boards published after each change, read by paintComponent
+	private final GenerationExchange generations = new GenerationExchange();
+	private long generation = 0;
+	//draws the visible part of the board into one image, knows the zoom and panning
+	private final ViewportRenderer renderer = new ViewportRenderer(BLOCK_SIZE, cellColor, deadColor, gridColor,
+			backgroundColor);
+	//pause once the board repeats, set from the event thread
+	private volatile boolean pauseWhenStable = false;
+	//run on the event thread once the board repeats, pauses the grid unless set otherwise
+	private volatile Runnable stableListener = this::pause;
+	//hashes of the generations stepped since the board or rule last changed, simulation thread only
+	private final CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_HISTORY);
+	//hash and rule after the last step, anything else means the board was changed in between
+	private long steppedHash = 0;
+	private Rule steppedRule = null;
+	//last mouse position while dragging, and whether the press became a drag
+	private Point dragPoint = null;
+	private boolean dragged = false;
 
 	/**
 	 * Default constructor, add event listeners, set game engine
@@ -40,81 +73,309 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 	public GameGrid(Cells cls) {
 		System.out.print("Initializing game grid\n");
 		this.cells = cls;
+		// population and step latency of the engine, for JMX consoles
+		if (cls instanceof CellsImpl) {
+			StepMetrics metrics = new StepMetrics();
+			((CellsImpl) cls).setMetrics(metrics);
+			try {
+				metrics.register("GameGrid");
+			} catch (JMException ex) {
+				System.out.printf("Step metrics not shown over JMX: %s\n", ex);
+			}
+		}
 		addComponentListener(this);
 		addMouseListener(this);
+		addMouseMotionListener(this);
+		addMouseWheelListener(this);
 	}
 
 	/**
 	 * Step into the next generation of fit cells
 	 */
 	public void step() {
-		this.cells.step();
+		step(1);
+	}
+
+	/**
+	 * Step generations on the simulation thread, only the last one is output and painted
+	 * @param n: number of generations
+	 */
+	public void step(int n) {
+		this.scheduler.step(n);
+	}
+
+	/**
+	 * Step continuously at the set speed
+	 */
+	public void play() {
+		this.scheduler.start();
+	}
+
+	/**
+	 * Stop stepping continuously and cancel steps requested, returns once the chunk being stepped is done
+	 */
+	public void pause() {
+		this.scheduler.pause();
+	}
+
+	/**
+	 * Shut down the simulation thread, the grid can't step afterwards
+	 */
+	public void shutdown() {
+		this.scheduler.shutdown();
+	}
+
+	/* (non-Javadoc)
+	 * @see SimulationScheduler.Simulation#advance(int)
+	 * Called on the simulation thread
+	 * with pause when stable on, each generation is hashed and stepping pauses once the board repeats,
+	 * a board already found to repeat steps on as usual when played again
+	 */
+	@Override
+	public void advance(int generations) {
+		if (!this.pauseWhenStable) {
+			this.steppedRule = null;
+			this.cells.stepBy(generations);
+			this.generation += generations;
+			return;
+		}
+		long hash = this.cells.getHash();
+		// the board or the rule changed other than by stepping, the history doesn't lead here
+		if (hash != this.steppedHash || !this.cells.getRule().equals(this.steppedRule)) {
+			this.cycles.reset();
+			this.cycles.record(this.generation, hash);
+			this.steppedRule = this.cells.getRule();
+		}
+		if (this.cycles.isCycle()) {
+			this.cells.stepBy(generations);
+			this.generation += generations;
+			this.steppedHash = this.cells.getHash();
+			return;
+		}
+		for (int k = 0; k < generations; ++k) {
+			this.cells.step();
+			++this.generation;
+			hash = this.cells.getHash();
+			if (this.cycles.record(this.generation, hash)) {
+				System.out.printf("Stable from generation %d, period %d\n", this.cycles.getStart(),
+						this.cycles.getPeriod());
+				// pausing waits for this frame, so it is left to the event thread
+				SwingUtilities.invokeLater(this.stableListener);
+				break;
+			}
+		}
+		this.steppedHash = hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see SimulationScheduler.Simulation#frame()
+	 * Called on the simulation thread, after some generations were stepped
+	 */
+	@Override
+	public void frame() {
 		outputCells();
-		repaint();
+		publish();
 	}
 
 	/**
-	 * Fill grid with cells at random positions
+	 * Publish the board for painting and repaint, after every change to the engine
+	 * painting reads the published copy, so it never races the stepping thread
+	 * only the cells that changed since the last publish are repainted
 	 */
-	public void randomFill() {
-		for (int i = 0; i < this.dimensions.height; ++i) {
-			for (int j = 0; j < this.dimensions.width; ++j) {
-				int rand = 1 + (int)(Math.random() * 7);
-				if (rand == 1) {
-					this.cells.toggle(i, j);
-				}
+	private void publish() {
+		Rectangle changed = this.generations.publish(this.cells, this.generation);
+		if (changed != null) {
+			repaint(this.renderer.toPixels(changed));
+		}
+	}
+
+	/**
+	 * Change the engine with stepping paused, then publish the board, from the event thread
+	 * the simulation thread is the only other one changing the engine or publishing, so pausing
+	 * it first keeps them apart, steps requested are cancelled and playing continues afterwards
+	 * @param change: edit of the engine
+	 */
+	private void edit(Runnable change) {
+		boolean running = this.scheduler.isRunning();
+		this.scheduler.pause();
+		try {
+			change.run();
+			publish();
+		} finally {
+			if (running) {
+				this.scheduler.start();
 			}
 		}
-		repaint();
 	}
 
 	/**
-	 * Fill grid with cells at given positions
+	 * Fill grid with cells at random positions
+	 */
+	public void randomFill() {
+		ensureBoard();
+		edit(() -> this.cells.fillRandom(1.0 / 7, new Random().nextLong()));
+	}
+
+	/**
+	 * Fill grid with cells at given positions, the board is resized to the lines
 	 */
 	public void populate(String lines[]) {
-		repaint();
-		int i = 0;
-		int j = 0;
+		int width = 0;
 		for (String line : lines) {
-			char[] chars = line.toCharArray();
-			//System.out.printf("chars length %d\n", chars.length);
-			for (char c : chars) {
-				if ( c == '0') {
-					System.out.printf("populate (%d, %d)\n", i, j);
-					this.cells.toggle(i, j);
+			width = Math.max(width, line.length());
+		}
+		int columns = width;
+		edit(() -> {
+			this.cells.resize(columns, lines.length);
+			int i = 0;
+			int j = 0;
+			for (String line : lines) {
+				char[] chars = line.toCharArray();
+				//System.out.printf("chars length %d\n", chars.length);
+				for (char c : chars) {
+					if ( c == '0') {
+						//System.out.printf("populate (%d, %d)\n", i, j);
+						this.cells.toggle(i, j);
+					}
+					j++;
 				}
-				j++;
+				j = 0;
+				i++;
 			}
-			j = 0;
-			i++;
-		}
+		});
 		repaint();
 	}
 
 	/**
-	 * Clear grid
+	 * Load a pattern file, the engine is resized to the pattern
+	 * stepping is paused while it loads, as in edit, which can't throw
+	 * @param path: RLE, Life 1.06 or plaintext file
+	 * @return pattern size
 	 */
-	public void clear() {
-		for (int i = 0; i < this.dimensions.height; ++i) {
-			for (int j = 0; j < this.dimensions.width; ++j) {
-   			this.cells.clear(i, j);
+	public Dimension load(Path path) throws IOException {
+		boolean running = this.scheduler.isRunning();
+		this.scheduler.pause();
+		try {
+			Dimension size = PatternReader.load(path, this.cells);
+			this.generation = 0;
+			publish();
+			repaint();
+			return size;
+		} finally {
+			if (running) {
+				this.scheduler.start();
 			}
 		}
+	}
+
+	/**
+	 * Clear grid
+	 */
+	public void clear() {
+		ensureBoard();
+		edit(() -> {
+			this.cells.clear();
+			this.generation = 0;
+		});
+	}
+
+	/**
+	 * Resize the board, cells within both sizes are kept
+	 * @param columns
+	 * @param rows
+	 */
+	public void resizeBoard(int columns, int rows) {
+		edit(() -> this.cells.resize(columns, rows));
+		repaint();
+	}
+
+	/**
+	 * @return board size, null until the board is first sized
+	 */
+	public Dimension getBoardSize() {
+		return this.cells.getDimension();
+	}
+
+	/**
+	 * Zoom in one level around the middle of the panel
+	 */
+	public void zoomIn() {
+		this.renderer.zoom(1, getWidth() / 2, getHeight() / 2);
+		repaint();
+	}
+
+	/**
+	 * Zoom out one level around the middle of the panel
+	 */
+	public void zoomOut() {
+		this.renderer.zoom(-1, getWidth() / 2, getHeight() / 2);
 		repaint();
 	}
 
+	/**
+	 * Show the whole board at the largest zoom it fits the panel at
+	 */
+	public void fitView() {
+		Dimension size = this.cells.getDimension();
+		if (size != null) {
+			this.renderer.fit(size.width, size.height, getWidth(), getHeight());
+			repaint();
+		}
+	}
+
 	/**
 	 * Set speed
+	 * @param sp: frames per second, 0 or less for unlimited
 	 */
 	public void setSpeed(int sp) {
-		speed = sp;
+		this.scheduler.setRate(sp);
+	}
+
+	/**
+	 * Set the number of generations stepped for every frame painted
+	 * @param n: generations, at least 1
+	 */
+	public void setGenerationsPerFrame(int n) {
+		this.scheduler.setGenerationsPerFrame(n);
+	}
+
+	public int getGenerationsPerFrame() {
+		return this.scheduler.getGenerationsPerFrame();
+	}
+
+	/**
+	 * Set the rule cells are stepped by, stepping pauses while it changes, see edit
+	 * @param rule: life-like rule
+	 * @throws IllegalArgumentException if the engine can't run the rule
+	 */
+	public void setRule(Rule rule) {
+		edit(() -> this.cells.setRule(rule));
+	}
+
+	public Rule getRule() {
+		return this.cells.getRule();
 	}
 
 	/**
 	 * Teleport cells
 	 */
 	public void toggleTeleportCells() {
-		this.cells.toggleTeleport();
+		edit(this.cells::toggleTeleport);
+	}
+
+	/**
+	 * Toggle pausing once the board repeats, a still life or an oscillator
+	 */
+	public void togglePauseWhenStable() {
+		this.pauseWhenStable = !this.pauseWhenStable;
+	}
+
+	/**
+	 * Set what is done once the board repeats with pause when stable on, i.e. pause and update menus
+	 * @param listener: run on the event thread, it should pause the grid
+	 */
+	public void setStableListener(Runnable listener) {
+		this.stableListener = listener;
 	}
 
 	/**
@@ -122,34 +383,17 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 	 */
 	public void toggleConsoleOutput() {
 		this.consoleOutput = !this.consoleOutput;
+		this.console.reset();
 	}
 
 	/**
 	 * Get speed
 	 */
 	public String getSpeed() {
-		Integer s = speed;
+		Integer s = this.scheduler.getRate();
 		return  s.toString();
 	}
 
-	/* (non-Javadoc)
-	 * @see java.lang.Runnable#run()
-	 * Thread run function for continues stepping
-	 * Thread sleeps at SPEED intervals
-	 */
-	@Override
-	public void run() {
-		this.running = true;
-		step();
-		try {
-			Thread.sleep(1000 / speed);
-			Thread.yield();
-			run();
-		} catch (InterruptedException ex) {
-		}
-		this.running = false;
-	}
-
 	/**
 	 * Toggle cell state at specific x,y coordinate
 	 * @param x
@@ -157,8 +401,7 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 	 */
 	private void toggleCell(int x, int y) {
 		//System.out.printf("GameGrid.setCell(%d, %d)\n", x, y);
-		this.cells.toggle(x, y);
-		repaint();
+		edit(() -> this.cells.toggle(x, y));
 	}
 
 	/**
@@ -166,113 +409,59 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 	 * @param e: event
 	 */
 	private void setCell(MouseEvent e) {
-		int x = e.getPoint().y / BLOCK_SIZE - 1;
-		int y = e.getPoint().x / BLOCK_SIZE - 1;
+		Dimension size = this.cells.getDimension();
+		int x = this.renderer.rowAt(e.getY());
+		int y = this.renderer.columnAt(e.getX());
 		//System.out.printf("MouseEvent (%d, %d)\n", x, y);
-		if ((x >= 0) && (y >= 0) && (x < this.dimensions.height) && (y < this.dimensions.width)) {
+		if (size != null && (x >= 0) && (y >= 0) && (x < size.height) && (y < size.width)) {
 			toggleCell(x, y);
 		}
 	}
 
 	/**
-	 * Paint horizontal and vertical lines to compose a grid
-	 * @param g: Graphics context
-	 */
-	private void paintGrid(Graphics g) {
-		g.setColor(GameGrid.gridColor);
-		for (int i = 0; i <= this.dimensions.width; ++i) {
-			g.drawLine(((i * BLOCK_SIZE) + BLOCK_SIZE), BLOCK_SIZE, (i * BLOCK_SIZE) + BLOCK_SIZE,
-					BLOCK_SIZE + (BLOCK_SIZE * this.dimensions.height));
-		}
-		for (int i = 0; i <= this.dimensions.height; ++i) {
-			g.drawLine(BLOCK_SIZE, ((i * BLOCK_SIZE) + BLOCK_SIZE), BLOCK_SIZE * (this.dimensions.width + 1),
-					((i * BLOCK_SIZE) + BLOCK_SIZE));
-		}
-	}
-
-	/**
-	 * Paint all live cells based on default color and block size
-	 * @param g: Graphics context
+	 * Draw the board on the console, when console output is on
 	 */
-	private void paintAliveCells(Graphics g) {
-		try {
-			g.setColor(GameGrid.cellColor);
-			ArrayList<Point> points = this.cells.getAlivePoints();
-			for (Point c : points) {
-				g.fillRoundRect(BLOCK_SIZE + (BLOCK_SIZE * c.y), BLOCK_SIZE + (BLOCK_SIZE * c.x),
-						BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
-			}
-		} catch (ConcurrentModificationException ex) {
-			ex.printStackTrace();
-		}
-	}
-	
 	public void outputCells() {
 		if (this.consoleOutput) {
-			char[] charsTop = new char[this.dimensions.width + 4];
-			char[] charsBottom = new char[this.dimensions.width + 4];
-			Arrays.fill(charsTop, '_');
-			Arrays.fill(charsBottom, '-');
-			String st = new String(charsTop);
-			String sb = new String(charsBottom);
-	
-			//reset terminal/console for continues viewing...
-			System.out.print("\033[H\033[2J");
-			System.out.print("Conway's Game of Life\n");
-					
-			int curColumn = 0;
-			System.out.printf("%s\n", st);
-			boolean printStartBar = true;
-			for (Cell cell: this.cells.getCells()) {
-				if (printStartBar) {
-					System.out.print("| ");
-					printStartBar = false;
-				}
-				if (cell.isAlive()) {
-					System.out.print("0");
-				} else {
-					System.out.print(".");
-				}
-				curColumn++;
-				if (curColumn >= this.dimensions.width) {
-					curColumn = 0;
-					System.out.print(" |\r\n");
-					printStartBar = true;
-				}
-			}
-			System.out.printf("%s\n", sb);
+			this.console.render(this.cells);
 		}
 	}
 
 	/* (non-Javadoc)
 	 * @see javax.swing.JComponent#paintComponent(java.awt.Graphics)
 	 * Callback so that the grid and cells have a chance to paint
+	 * the visible cells within the clip are rendered into the viewport image, which is
+	 * copied in one drawImage, it covers the whole panel so the background isn't painted
 	 */
 	@Override
 	public void paintComponent(Graphics g) {
-		super.paintComponent(g);
-		paintAliveCells(g);
-		paintGrid(g);
-	}
-
-	/**
-	 * Helper function to calculate dimensions based on window width and height
-	 */
-	private void calculateDimensions() {
-		this.dimensions = new Dimension(getWidth() / BLOCK_SIZE - 2, getHeight() / BLOCK_SIZE - 2);
+		this.renderer.render(this.generations.acquire(), getWidth(), getHeight(), g.getClipBounds());
+		if (this.renderer.getImage() != null) {
+			g.drawImage(this.renderer.getImage(), 0, 0, null);
+		}
 	}
 
 	/* (non-Javadoc)
 	 * @see java.awt.event.ComponentListener#componentResized(java.awt.event.ComponentEvent)
 	 * This event is triggered when the window is resized
-	 * It will call engine resize so that the cell grids can be reconfigured, 
-	 * including copying any existing cell data
+	 * The board keeps its size, only more or less of it is shown
+	 * the board is sized to the window only the first time, before it has a size
 	 */
 	@Override
 	public void componentResized(ComponentEvent e) {
-		calculateDimensions();
-		//System.out.printf("componentResized width=%d height=%d \n", this.dimensions.width, this.dimensions.height);
-		this.cells.resize(this.dimensions.width, this.dimensions.height);
+		ensureBoard();
+		repaint();
+	}
+
+	/**
+	 * Size the board to fit the panel, if it has no size yet
+	 * called before anything that sets cells
+	 */
+	private void ensureBoard() {
+		int zoom = this.renderer.getZoom();
+		if (this.cells.getDimension() == null && getWidth() > 0 && getHeight() > 0) {
+			resizeBoard(Math.max(1, getWidth() / zoom - 2), Math.max(1, getHeight() / zoom - 2));
+		}
 	}
 
 	/* (non-Javadoc)
@@ -281,9 +470,45 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 	 */
 	@Override
 	public void mouseReleased(MouseEvent e) {
-		if (!this.running) {
+		if (!this.dragged && !this.scheduler.isBusy()) {
 			setCell(e);
 		}
+		this.dragPoint = null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.awt.event.MouseListener#mousePressed(java.awt.event.MouseEvent)
+	 * Start of a click or a drag
+	 */
+	@Override
+	public void mousePressed(MouseEvent e) {
+		this.dragPoint = e.getPoint();
+		this.dragged = false;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.awt.event.MouseMotionListener#mouseDragged(java.awt.event.MouseEvent)
+	 * Dragging pans the board, and the press no longer toggles a cell
+	 */
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		if (this.dragPoint == null) {
+			return;
+		}
+		this.renderer.pan(e.getX() - this.dragPoint.x, e.getY() - this.dragPoint.y);
+		this.dragPoint = e.getPoint();
+		this.dragged = true;
+		repaint();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.awt.event.MouseWheelListener#mouseWheelMoved(java.awt.event.MouseWheelEvent)
+	 * The wheel zooms around the cell under the mouse
+	 */
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		this.renderer.zoom(-e.getWheelRotation(), e.getX(), e.getY());
+		repaint();
 	}
 
 	// Unused mouse events
@@ -305,7 +530,7 @@ public class GameGrid extends JPanel implements ComponentListener, MouseListener
 		/* unused */ }
 
 	@Override
-	public void mousePressed(MouseEvent e) {
+	public void mouseMoved(MouseEvent e) {
 		/* unused */ }
 
 	@Override
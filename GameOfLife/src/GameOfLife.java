@@ -2,8 +2,10 @@ import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.util.Arrays;
 
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -11,6 +13,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JSeparator;
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * @author Kevin Guerra kevingnet@gmail.com
@@ -29,21 +32,29 @@ public class GameOfLife extends JFrame implements ActionListener {
 	private JMenu menuGame;
 	private JMenu menuBoard;
 	private JMenu menuOptions;
+	private JMenu menuView;
 	private JMenuItem menuStep;
+	private JMenuItem menuStepMany;
 	private JMenuItem menuRandomFill;
 	private JMenuItem menuClear;
+	private JMenuItem menuBoardSize;
+	private JMenuItem menuZoomIn;
+	private JMenuItem menuZoomOut;
+	private JMenuItem menuFitBoard;
 	private JMenuItem menuPlay;
-	private JMenuItem menuStop;
+	private JMenuItem menuPause;
 	private JMenuItem menuInput;
+	private JMenuItem menuOpenPattern;
 	private JMenuItem menuSetSpeed;
+	private JMenuItem menuSetGenerationsPerFrame;
+	private JMenuItem menuSetRule;
 	private JCheckBoxMenuItem menuTeleport;
 	private JCheckBoxMenuItem menuOutputToConsole;
+	private JCheckBoxMenuItem menuPauseWhenStable;
 	private GameGrid gameGrid;
 
 	//game engine interface
 	private Cells cells;
-	//thread for automatic continues stepping
-	private Thread gameThread;
 	private static boolean consoleOutput = false;
 
 	/**
@@ -72,13 +83,17 @@ public class GameOfLife extends JFrame implements ActionListener {
     }
 	}
 
+	/**
+	 * Size the window to show a board, no larger than the screen, and zoom the board to fit it
+	 */
 	private void resizeWindow(int columns, int rows) {
-		int width = ((columns + 2) * BLOCK_SIZE) + WIDTH_PADDING;
-		int height = ((rows + 2) * BLOCK_SIZE) + HEIGHT_PADDING;
-		Dimension windowSize = new Dimension(width, height);
+		Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+		int width = Math.min(screen.width, ((columns + 2) * BLOCK_SIZE) + WIDTH_PADDING);
+		int height = Math.min(screen.height, ((rows + 2) * BLOCK_SIZE) + HEIGHT_PADDING);
+		Dimension windowSize = new Dimension(Math.max(width, WINDOW_SIZE.width), Math.max(height, WINDOW_SIZE.height));
 		setSize(windowSize);
-		gameGrid.setSize(windowSize);
-		gameGrid.repaint();
+		validate();
+		gameGrid.fitView();
 		setLocation((Toolkit.getDefaultToolkit().getScreenSize().width - getWidth()) / 2,
 				(Toolkit.getDefaultToolkit().getScreenSize().height - getHeight()) / 2);
 	}
@@ -90,6 +105,8 @@ public class GameOfLife extends JFrame implements ActionListener {
 		buildMenu();
 		this.cells = new CellsImpl();
 		this.gameGrid = new GameGrid(this.cells);
+		// pausing once the board repeats goes through the menus like Pause does
+		this.gameGrid.setStableListener(this::pause);
 		add(this.gameGrid);
 		if (consoleOutput) {
 			this.gameGrid.toggleConsoleOutput();
@@ -105,27 +122,51 @@ public class GameOfLife extends JFrame implements ActionListener {
 		if (e.getSource().equals(this.menuPlay)) {
 			System.out.print("Playing...\n");
 			play();
-		} else if (e.getSource().equals(this.menuStop)) {
-			System.out.print("Stopping...\n");
-			stop();
+		} else if (e.getSource().equals(this.menuPause)) {
+			System.out.print("Pausing...\n");
+			pause();
+		} else if (e.getSource().equals(this.menuStepMany)) {
+			System.out.print("Step many times\n");
+			stepMany();
 		} else if (e.getSource().equals(this.menuRandomFill)) {
 			System.out.print("Random fill grid\n");
 			randomFill();
 		} else if (e.getSource().equals(this.menuClear)) {
 			System.out.print("Clear grid\n");
 			clear();
+		} else if (e.getSource().equals(this.menuBoardSize)) {
+			System.out.print("Board Size\n");
+			boardSize();
+		} else if (e.getSource().equals(this.menuZoomIn)) {
+			this.gameGrid.zoomIn();
+		} else if (e.getSource().equals(this.menuZoomOut)) {
+			this.gameGrid.zoomOut();
+		} else if (e.getSource().equals(this.menuFitBoard)) {
+			this.gameGrid.fitView();
 		} else if (e.getSource().equals(this.menuInput)) {
 			System.out.print("Input Cells\n");
 			input();
+		} else if (e.getSource().equals(this.menuOpenPattern)) {
+			System.out.print("Open Pattern\n");
+			openPattern();
 		} else if (e.getSource().equals(this.menuSetSpeed)) {
 			System.out.print("Set Speed\n");
 			setSpeed();
+		} else if (e.getSource().equals(this.menuSetGenerationsPerFrame)) {
+			System.out.print("Set Generations Per Frame\n");
+			setGenerationsPerFrame();
+		} else if (e.getSource().equals(this.menuSetRule)) {
+			System.out.print("Set Rule\n");
+			setRule();
 		} else if (e.getSource().equals(this.menuTeleport)) {
 			System.out.print("Teleport Cells\n");
 			teleport();
 		} else if (e.getSource().equals(this.menuOutputToConsole)) {
 			System.out.print("Output To Console\n");
 			consoleOutput();
+		} else if (e.getSource().equals(this.menuPauseWhenStable)) {
+			System.out.print("Pause When Stable\n");
+			pauseWhenStable();
 		} else {
 			System.out.print("Step one time\n");
 			step();
@@ -133,30 +174,37 @@ public class GameOfLife extends JFrame implements ActionListener {
 	}
 
 	/*
-	 * NOTE: In java it is discouraged to use thread: stop, continue because it
-	 * causes dead lock issues under certain conditions, this is why we create a
-	 * new thread each time Play is run.
+	 * NOTE: stepping runs on the grid's single simulation thread, Play and Pause
+	 * only schedule and cancel it, no thread is created or stopped here
 	 */
 
 	private void play() {
 		this.menuPlay.setEnabled(false);
-		this.menuStop.setEnabled(true);
+		this.menuPause.setEnabled(true);
 		this.menuStep.setEnabled(false);
-		this.gameThread = new Thread(this.gameGrid);
-		this.gameThread.start();
+		this.menuStepMany.setEnabled(false);
+		this.gameGrid.play();
 	}
 
-	private void stop() {
+	private void pause() {
 		this.menuPlay.setEnabled(true);
-		this.menuStop.setEnabled(false);
+		this.menuPause.setEnabled(false);
 		this.menuStep.setEnabled(true);
-		this.gameThread.interrupt();
+		this.menuStepMany.setEnabled(true);
+		this.gameGrid.pause();
 	}
 
 	private void step() {
 		this.gameGrid.step();
 	}
 
+	private void stepMany() {
+		String generations = JOptionPane.showInputDialog("Please input the number of generations to step", "100");
+		if (generations != null) {
+			this.gameGrid.step(Integer.parseInt(generations));
+		}
+	}
+
 	private void randomFill() {
 		this.gameGrid.randomFill();
 	}
@@ -164,16 +212,51 @@ public class GameOfLife extends JFrame implements ActionListener {
 	private void setSpeed() {
 		String currentSpeed = this.gameGrid.getSpeed();
 		String speed = JOptionPane.showInputDialog(
-				"Please input desired speed as an integer which divides a second as the number of steps n", currentSpeed);
+				"Please input desired speed as an integer which divides a second as the number of steps n,\n"
+				+ "or 0 to step as fast as possible", currentSpeed);
 		if (speed != null) {
 			this.gameGrid.setSpeed(Integer.parseInt(speed));
 		}
 	}
 
+	private void setGenerationsPerFrame() {
+		String current = Integer.toString(this.gameGrid.getGenerationsPerFrame());
+		String generations = JOptionPane.showInputDialog(
+				"Please input the number of generations to step for every frame shown", current);
+		if (generations != null) {
+			this.gameGrid.setGenerationsPerFrame(Integer.parseInt(generations));
+		}
+	}
+
 	private void clear() {
 		this.gameGrid.clear();
 	}
 
+	private void setRule() {
+		String rule = JOptionPane.showInputDialog(
+				"Please input the rule in B/S notation, i.e. B3/S23 Conway, B36/S23 HighLife,\n"
+				+ "B3678/S34678 Day & Night, B2/S Seeds", this.gameGrid.getRule().toString());
+		if (rule != null) {
+			try {
+				this.gameGrid.setRule(Rule.parse(rule));
+			} catch (IllegalArgumentException ex) {
+				JOptionPane.showMessageDialog(this, ex.getMessage(), "Set Rule", JOptionPane.ERROR_MESSAGE);
+			}
+		}
+	}
+
+	private void boardSize() {
+		Dimension size = this.gameGrid.getBoardSize();
+		String current = size == null ? "" : size.width + "x" + size.height;
+		String board = JOptionPane.showInputDialog(
+				"Please input the board size as columns x rows, the window shows part of larger boards", current);
+		if (board != null) {
+			String[] parts = board.trim().split("\\s*[xX]\\s*");
+			this.gameGrid.resizeBoard(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+			this.gameGrid.fitView();
+		}
+	}
+
 	private void teleport() {
 		this.gameGrid.toggleTeleportCells();
 	}
@@ -182,6 +265,10 @@ public class GameOfLife extends JFrame implements ActionListener {
 		this.gameGrid.toggleConsoleOutput();
 	}
 
+	private void pauseWhenStable() {
+		this.gameGrid.togglePauseWhenStable();
+	}
+
 	private void input() {
 		String cells = JOptionPane.showInputDialog(
 				"Please input cells i.e.\n ...\n.0.\n.0.\n String of periods and zeroes separated by n");
@@ -190,6 +277,20 @@ public class GameOfLife extends JFrame implements ActionListener {
 		}
 	}
 	
+	private void openPattern() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("Patterns (rle, lif, cells)", "rle", "lif", "life", "cells"));
+		if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		try {
+			Dimension size = this.gameGrid.load(chooser.getSelectedFile().toPath());
+			resizeWindow(size.width, size.height);
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Open Pattern", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
 	private void processInput(String cells) {
 		String lines[] = cells.split("n");
 		int maxLength = 0;
@@ -211,10 +312,8 @@ public class GameOfLife extends JFrame implements ActionListener {
 		}
 		System.out.printf("%s\n", sb);
 		
-		gameGrid.setVisible(false);
-		resizeWindow(maxLength, lines.length);
-		gameGrid.setVisible(true);
 		this.gameGrid.populate(lines);
+		resizeWindow(maxLength, lines.length);
 	}
 
 	private void buildMenu() {
@@ -228,39 +327,69 @@ public class GameOfLife extends JFrame implements ActionListener {
 		this.menuOutputToConsole.setSelected(consoleOutput);
 		this.menuOutputToConsole.addActionListener(this);
 
+		this.menuPauseWhenStable = new JCheckBoxMenuItem("Pause When Stable");
+		this.menuPauseWhenStable.addActionListener(this);
+
 		this.menuBar = new JMenuBar();
 		setJMenuBar(this.menuBar);
 		this.menuPlay = new JMenuItem("Play");
 		this.menuPlay.addActionListener(this);
-		this.menuStop = new JMenuItem("Stop");
-		this.menuStop.addActionListener(this);
-		this.menuStop.setEnabled(false);
+		this.menuPause = new JMenuItem("Pause");
+		this.menuPause.addActionListener(this);
+		this.menuPause.setEnabled(false);
 		this.menuStep = new JMenuItem("Step");
 		this.menuStep.addActionListener(this);
+		this.menuStepMany = new JMenuItem("Step Many");
+		this.menuStepMany.addActionListener(this);
 		this.menuRandomFill = new JMenuItem("Ramdom fill");
 		this.menuRandomFill.addActionListener(this);
 		this.menuClear = new JMenuItem("Clear");
 		this.menuClear.addActionListener(this);
+		this.menuBoardSize = new JMenuItem("Board Size");
+		this.menuBoardSize.addActionListener(this);
+		this.menuZoomIn = new JMenuItem("Zoom In");
+		this.menuZoomIn.addActionListener(this);
+		this.menuZoomOut = new JMenuItem("Zoom Out");
+		this.menuZoomOut.addActionListener(this);
+		this.menuFitBoard = new JMenuItem("Fit Board");
+		this.menuFitBoard.addActionListener(this);
 		this.menuSetSpeed = new JMenuItem("Set Speed");
 		this.menuSetSpeed.addActionListener(this);
+		this.menuSetGenerationsPerFrame = new JMenuItem("Set Generations Per Frame");
+		this.menuSetGenerationsPerFrame.addActionListener(this);
+		this.menuSetRule = new JMenuItem("Set Rule");
+		this.menuSetRule.addActionListener(this);
 		this.menuInput = new JMenuItem("Input Cells");
 		this.menuInput.addActionListener(this);
+		this.menuOpenPattern = new JMenuItem("Open Pattern");
+		this.menuOpenPattern.addActionListener(this);
 		this.menuGame = new JMenu("Game");
 		this.menuBoard = new JMenu("Board");
 		this.menuOptions = new JMenu("Options");
+		this.menuView = new JMenu("View");
 		this.menuGame.add(this.menuStep);
+		this.menuGame.add(this.menuStepMany);
 		this.menuGame.add(new JSeparator());
 		this.menuGame.add(this.menuPlay);
-		this.menuGame.add(this.menuStop);
+		this.menuGame.add(this.menuPause);
 		this.menuBoard.add(this.menuRandomFill);
 		this.menuBoard.add(new JSeparator());
 		this.menuBoard.add(this.menuClear);
+		this.menuBoard.add(this.menuBoardSize);
+		this.menuView.add(this.menuZoomIn);
+		this.menuView.add(this.menuZoomOut);
+		this.menuView.add(this.menuFitBoard);
 		this.menuOptions.add(this.menuInput);
+		this.menuOptions.add(this.menuOpenPattern);
 		this.menuOptions.add(this.menuSetSpeed);
+		this.menuOptions.add(this.menuSetGenerationsPerFrame);
+		this.menuOptions.add(this.menuSetRule);
 		this.menuOptions.add(this.menuTeleport);
 		this.menuOptions.add(this.menuOutputToConsole);
+		this.menuOptions.add(this.menuPauseWhenStable);
 		this.menuBar.add(this.menuGame);
 		this.menuBar.add(this.menuBoard);
+		this.menuBar.add(this.menuView);
 		this.menuBar.add(this.menuOptions);
 	}
 }
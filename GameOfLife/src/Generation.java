@@ -0,0 +1,178 @@
+import java.awt.Rectangle;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Read-only copy of a board at one generation, handed from the stepping thread to the renderer
+ * by GenerationExchange, cells are packed 64 per long word as in BitGridCells
+ * A generation is only written while no reader holds it, see GenerationExchange
+ */
+public final class Generation {
+	private final int columns;
+	private final int rows;
+	private final int words;
+	private final long[] cells;
+	private final LongBuffer cellsView;
+	private final CellVisitor setter = this::set;
+	private long number = 0;
+	//order of publication, set by GenerationExchange
+	private volatile long sequence = 0;
+
+	Generation(int columns, int rows) {
+		this.columns = columns;
+		this.rows = rows;
+		this.words = (columns + 63) >>> 6;
+		this.cells = new long[rows * this.words];
+		this.cellsView = LongBuffer.wrap(this.cells);
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * @return generation number the board was copied at
+	 */
+	public long getNumber() {
+		return this.number;
+	}
+
+	/**
+	 * Get cell state, false outside of the board
+	 * @param x: row
+	 * @param y: column
+	 */
+	public boolean getState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return (this.cells[(x * this.words) + (y >>> 6)] & (1L << y)) != 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Visit all live cells in row order
+	 * @param visitor: called once per live cell
+	 */
+	public void forEachAlive(CellVisitor visitor) {
+		for (int i = 0; i < this.rows; ++i) {
+			for (int k = 0; k < this.words; ++k) {
+				long word = this.cells[(i * this.words) + k];
+				while (word != 0) {
+					visitor.visit(i, (k << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visit the live cells of a region in row order, the region is clipped to the board
+	 * @param x: top row
+	 * @param y: left column
+	 * @param width: columns of the region
+	 * @param height: rows of the region
+	 * @param visitor: called once per live cell
+	 */
+	public void forEachAlive(int x, int y, int width, int height, CellVisitor visitor) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		if (from >= to) {
+			return;
+		}
+		int lastWord = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> (63 - ((to - 1) & 63));
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			for (int k = from >>> 6; k <= lastWord; ++k) {
+				long word = this.cells[(i * this.words) + k];
+				if (k == from >>> 6) {
+					word &= firstMask;
+				}
+				if (k == lastWord) {
+					word &= lastMask;
+				}
+				while (word != 0) {
+					visitor.visit(i, (k << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bounds of the cells that differ from another generation
+	 * @param previous: generation to compare with, may be null
+	 * @return changed cells as x column, y row, width columns and height rows, the whole board
+	 * when previous is null or of another size, null when nothing changed
+	 */
+	public Rectangle changedSince(Generation previous) {
+		if (previous == null || previous.columns != this.columns || previous.rows != this.rows) {
+			return new Rectangle(0, 0, this.columns, this.rows);
+		}
+		int top = -1;
+		int bottom = -1;
+		int left = Integer.MAX_VALUE;
+		int right = -1;
+		for (int i = 0; i < this.rows; ++i) {
+			int row = i * this.words;
+			for (int k = 0; k < this.words; ++k) {
+				long diff = this.cells[row + k] ^ previous.cells[row + k];
+				if (diff != 0) {
+					if (top < 0) {
+						top = i;
+					}
+					bottom = i;
+					left = Math.min(left, (k << 6) + Long.numberOfTrailingZeros(diff));
+					right = Math.max(right, (k << 6) + 63 - Long.numberOfLeadingZeros(diff));
+				}
+			}
+		}
+		if (top < 0) {
+			return null;
+		}
+		return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	/**
+	 * @return true if the board has the size of an engine
+	 */
+	boolean fits(Cells cells) {
+		return cells.getDimension().width == this.columns && cells.getDimension().height == this.rows;
+	}
+
+	/**
+	 * Copy the board of an engine, which must have the same size
+	 * packed engines are copied a row at a time, any other engine by visiting its live cells
+	 * @param cells: engine
+	 * @param number: generation number
+	 */
+	void copy(Cells cells, long number) {
+		this.number = number;
+		if (cells instanceof PackedRows) {
+			for (int i = 0; i < this.rows; ++i) {
+				((PackedRows) cells).readRow(i, this.cellsView, i * this.words);
+			}
+		} else {
+			Arrays.fill(this.cells, 0);
+			cells.forEachAlive(this.setter);
+		}
+	}
+
+	private void set(int x, int y) {
+		this.cells[(x * this.words) + (y >>> 6)] |= 1L << y;
+	}
+
+	long getSequence() {
+		return this.sequence;
+	}
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+}
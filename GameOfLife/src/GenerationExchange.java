@@ -0,0 +1,64 @@
+import java.awt.Rectangle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Hands boards from the threads changing an engine to a single rendering thread without locks,
+ * a triple buffer of Generation copies:
+ *   - a publisher copies the engine into a spare generation and swaps it in as the latest
+ *   - the reader swaps the generation it is done with for the latest, when there is a newer one
+ * so the reader never waits on stepping and never sees a generation while it is being copied,
+ * and once sizes settle no generation is allocated
+ */
+public class GenerationExchange {
+	//newest published generation, or the one the reader gave back
+	private final AtomicReference<Generation> latest = new AtomicReference<>();
+	//generation free for the next publish
+	private final AtomicReference<Generation> spare = new AtomicReference<>();
+	private final AtomicLong sequence = new AtomicLong();
+	//generation held by the reader
+	private Generation current = null;
+	//last generation published, only read, to find what changed
+	private Generation previous = null;
+
+	/**
+	 * Copy the board of an engine and make it the latest generation
+	 * may be called from any thread, while no other thread changes the engine or publishes
+	 * @param cells: engine
+	 * @param number: generation number
+	 * @return cells changed since the last publish, as x column, y row, width columns and
+	 * height rows, null when nothing changed, see Generation#changedSince
+	 */
+	public Rectangle publish(Cells cells, long number) {
+		if (cells.getDimension() == null) {
+			return null;
+		}
+		Generation g = this.spare.getAndSet(null);
+		if (g == null || !g.fits(cells)) {
+			g = new Generation(cells.getDimension().width, cells.getDimension().height);
+		}
+		g.copy(cells, number);
+		// the previous generation is never the spare, and the reader only reads it as well
+		Rectangle changed = g.changedSince(this.previous);
+		g.setSequence(this.sequence.incrementAndGet());
+		// the replaced generation was never given to the reader, or it gave it back
+		this.spare.set(this.latest.getAndSet(g));
+		this.previous = g;
+		return changed;
+	}
+
+	/**
+	 * Latest published generation, to be read by one thread only, i.e. the event dispatch thread
+	 * the returned generation stays unchanged until the next call
+	 * @return latest generation, null before anything was published
+	 */
+	public Generation acquire() {
+		Generation g = this.latest.get();
+		if (g != null && (this.current == null || g.getSequence() > this.current.getSequence())) {
+			// whatever is latest by now is complete, and newer than the current one
+			this.current = this.latest.getAndSet(this.current);
+		}
+		return this.current;
+	}
+}
@@ -0,0 +1,415 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation for multi state Generations rules, i.e. B2/S/C3 Brian's Brain,
+ * as well as two state ones, on a flat byte grid padded with a ghost border as in IndexedCells
+ * Each cell is its state as an unsigned byte, 0 dead, 1 alive, 2 and up decaying,
+ * so a cell takes a byte per grid whatever the number of states, the same as IndexedCells
+ *
+ */
+public class GenerationsCells implements Cells {
+	private byte[] cells = new byte[0];
+	private byte[] cellsBuffer = new byte[0];
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	//padded row length, one ghost column on each side
+	private int stride = 0;
+	private boolean teleport = true;
+	private Rule rule = Rule.CONWAY;
+	//next state by state * 9 + live neighbors, from the rule
+	private byte[] table = Rule.CONWAY.table();
+	//Zobrist hash of the board, decaying cells included, kept up to date by every step and edit
+	private long hash = 0;
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Called when the window is resized
+	 * copy overlapping rows into the resized grid, cells outside of a smaller grid are dropped
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		int s = c + 2;
+		byte[] resized = new byte[(r + 2) * s];
+		int copyRows = Math.min(r, this.rows);
+		int copyColumns = Math.min(c, this.columns);
+		for (int i = 1; i <= copyRows; ++i) {
+			System.arraycopy(this.cells, (i * this.stride) + 1, resized, (i * s) + 1, copyColumns);
+		}
+		this.columns = c;
+		this.rows = r;
+		this.stride = s;
+		this.cells = resized;
+		this.cellsBuffer = new byte[resized.length];
+		rehash();
+	}
+
+	/**
+	 * Hash every cell again, after cells are dropped in bulk
+	 */
+	private void rehash() {
+		long h = 0;
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				h ^= Zobrist.key(i, j, this.cells[row + j] & 0xff);
+			}
+		}
+		this.hash = h;
+	}
+
+	/**
+	 * Set the state of a cell and its part of the hash
+	 * @param k: padded index
+	 * @param x: row
+	 * @param y: column
+	 * @param state: new state
+	 */
+	private void set(int k, int x, int y, int state) {
+		int old = this.cells[k] & 0xff;
+		if (old != state) {
+			this.hash ^= Zobrist.key(x, y, old) ^ Zobrist.key(x, y, state);
+			this.cells[k] = (byte) state;
+		}
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells
+	 * Algorithm:
+	 *  - with teleport, copy the opposite edges into the ghost border, otherwise it stays dead
+	 *  - along each row keep the live cells of three columns of the rows above, at and below,
+	 *    so each cell reads three new neighbors instead of eight
+	 *  - look the next state up by state and live neighbors into the buffer and swap buffers
+	 *  - cells whose state changed change the hash by their old and new keys
+	 */
+	@Override
+	public void step() {
+		if (this.teleport) {
+			fillGhosts();
+		}
+		byte[] current = this.cells;
+		byte[] next = this.cellsBuffer;
+		byte[] t = this.table;
+		int s = this.stride;
+		long h = this.hash;
+		for (int i = 1; i <= this.rows; ++i) {
+			int start = (i * s) + 1;
+			int end = start + this.columns;
+			// live cells in the column left of k and in column k
+			int left = live(current[start - s - 1]) + live(current[start - 1]) + live(current[start + s - 1]);
+			int center = live(current[start - s]) + live(current[start]) + live(current[start + s]);
+			for (int k = start; k < end; ++k) {
+				int right = live(current[k - s + 1]) + live(current[k + 1]) + live(current[k + s + 1]);
+				int state = current[k] & 0xff;
+				int n = left + center + right - live(current[k]);
+				byte following = t[(state * 9) + n];
+				next[k] = following;
+				if (following != current[k]) {
+					h ^= Zobrist.key(i - 1, k - start, state) ^ Zobrist.key(i - 1, k - start, following & 0xff);
+				}
+				left = center;
+				center = right;
+			}
+		}
+		// swap arrays for next iteration
+		this.cellsBuffer = current;
+		this.cells = next;
+		this.hash = h;
+	}
+
+	/**
+	 * 1 for a live cell, 0 for a dead or decaying one
+	 */
+	private static int live(byte state) {
+		return state == 1 ? 1 : 0;
+	}
+
+	/**
+	 * Copy the opposite edges and corners into the ghost border, so wrapped
+	 * neighbors are read at the same offsets as any other
+	 */
+	private void fillGhosts() {
+		int s = this.stride;
+		int c = this.columns;
+		int r = this.rows;
+		System.arraycopy(this.cells, (r * s) + 1, this.cells, 1, c);
+		System.arraycopy(this.cells, s + 1, this.cells, ((r + 1) * s) + 1, c);
+		for (int i = 0; i <= r + 1; ++i) {
+			int row = i * s;
+			this.cells[row] = this.cells[row + c];
+			this.cells[row + c + 1] = this.cells[row + 1];
+		}
+	}
+
+	/**
+	 * Clear the ghost border, after teleport is turned off it must read as dead
+	 * @param grid: either of the two grids
+	 */
+	private void clearGhosts(byte[] grid) {
+		int s = this.stride;
+		int r = this.rows;
+		Arrays.fill(grid, 0, s, (byte) 0);
+		Arrays.fill(grid, (r + 1) * s, (r + 2) * s, (byte) 0);
+		for (int i = 1; i <= r; ++i) {
+			grid[i * s] = 0;
+			grid[(i * s) + s - 1] = 0;
+		}
+	}
+
+	@Override
+	public void toggleTeleport() {
+		this.teleport = !this.teleport;
+		if (!this.teleport) {
+			clearGhosts(this.cells);
+			clearGhosts(this.cellsBuffer);
+		}
+	}
+
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * Cells decaying through a state the new rule doesn't have are dead
+	 */
+	@Override
+	public void setRule(Rule r) {
+		int states = r.getStates();
+		if (states < this.rule.getStates()) {
+			for (int k = 0; k < this.cells.length; ++k) {
+				if ((this.cells[k] & 0xff) >= states) {
+					this.cells[k] = 0;
+				}
+			}
+			rehash();
+		}
+		this.rule = r;
+		this.table = r.table();
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/**
+	 * Padded index of a cell
+	 * @param x: row
+	 * @param y: column
+	 */
+	private int index(int x, int y) {
+		return ((x + 1) * this.stride) + y + 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state, a decaying cell is cleared
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			int k = index(x, y);
+			set(k, x, y, this.cells[k] == 0 ? 1 : 0);
+		} else {
+			System.out.print("Cells.toggle invalid coordinate!\n");
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.cells, (byte) 0);
+		Arrays.fill(this.cellsBuffer, (byte) 0);
+		this.hash = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			set(index(x, y), x, y, 0);
+		} else {
+			System.out.print("Cells.clear invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state, decaying cells are not alive
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return this.cells[index(x, y)] == 1;
+		} else {
+			System.out.print("Cells.getState invalid coordinate!\n");
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCellState(int, int)
+	 */
+	@Override
+	public int getCellState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return this.cells[index(x, y)] & 0xff;
+		} else {
+			System.out.print("Cells.getCellState invalid coordinate!\n");
+		}
+		return 0;
+	}
+
+	/**
+	 * Set the integer state of a cell
+	 * @param x: row
+	 * @param y: column
+	 * @param state: 0 dead, 1 alive, 2 up to the rule's states less one decaying
+	 */
+	public void setCellState(int x, int y, int state) {
+		if (state < 0 || state >= this.rule.getStates()) {
+			throw new IllegalArgumentException("Cells.setCellState " + state + " is not a state of " + this.rule);
+		}
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			set(index(x, y), x, y, state);
+		} else {
+			System.out.print("Cells.setCellState invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			int row = index(i, 0);
+			int bits = (i - x) * w;
+			for (int j = from; j < to; ++j) {
+				int b = j - y;
+				set(row + j, i, j, (int) (bitmap[bits + (b >>> 6)] >>> b) & 1);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd && from < to; ++i) {
+			int row = index(i, 0);
+			for (int j = from; j < to; ++j) {
+				set(row + j, i, j, 0);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				if (random.nextDouble() < density) {
+					set(row + j, i, j, 1);
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		int state = alive ? 1 : 0;
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+				set(index(x, y), x, y, state);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getHash()
+	 * decaying cells are hashed by their state too, see Zobrist.key(int, int, int),
+	 * kept up to date by every step and edit, nothing is visited
+	 */
+	@Override
+	public long getHash() {
+		return this.hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * decaying cells are not visited
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		byte[] current = this.cells;
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				if (current[row + j] == 1) {
+					visitor.visit(i, j);
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points so cells can be drawn
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so they are built on demand, decaying cells are dead
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				list.add(new Cell(new Point(i, j), this.cells[row + j] == 1 ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
@@ -0,0 +1,556 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation using the HashLife algorithm
+ * The universe is an unbounded quadtree of canonical nodes, every distinct square
+ * is stored once and the future of its center is memoized, so regular patterns
+ * can be advanced by 2^k generations in a single call
+ * The grid dimensions only set the visible window onto the universe
+ *
+ */
+public class HashLifeCells implements Cells {
+	//smallest root level, an 8x8 square
+	private static final int MIN_LEVEL = 3;
+	//deepest root level, coordinates still fit in a long
+	private static final int MAX_LEVEL = 62;
+	//canonical nodes kept before the table is rebuilt from the current root
+	private static final int MAX_NODES = 1 << 22;
+
+	/**
+	 * Quadtree node, a square of 2^level cells on each side
+	 * nodes are immutable and canonical, so children are compared by identity
+	 */
+	private static final class Node {
+		final Node nw;
+		final Node ne;
+		final Node sw;
+		final Node se;
+		final int level;
+		final long population;
+		final int hash;
+		//center advanced by 2^(level-2) generations
+		Node result = null;
+		//center advanced by 2^stepLog generations, for smaller steps
+		Node stepResult = null;
+		int stepLog = -1;
+
+		//leaf, a single cell
+		Node(boolean alive) {
+			this.nw = this.ne = this.sw = this.se = null;
+			this.level = 0;
+			this.population = alive ? 1 : 0;
+			this.hash = alive ? 1 : 0;
+		}
+
+		Node(Node nw, Node ne, Node sw, Node se) {
+			this.nw = nw;
+			this.ne = ne;
+			this.sw = sw;
+			this.se = se;
+			this.level = nw.level + 1;
+			this.population = nw.population + ne.population + sw.population + se.population;
+			int h = System.identityHashCode(nw);
+			h = (h * 31) + System.identityHashCode(ne);
+			h = (h * 31) + System.identityHashCode(sw);
+			h = (h * 31) + System.identityHashCode(se);
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Node)) {
+				return false;
+			}
+			Node n = (Node) o;
+			return this.nw == n.nw && this.ne == n.ne && this.sw == n.sw && this.se == n.se && this.level == n.level;
+		}
+	}
+
+	private static final Node DEAD = new Node(false);
+	private static final Node ALIVE = new Node(true);
+
+	private HashMap<Node, Node> nodes = new HashMap<>();
+	private Node[] emptyNodes = new Node[MAX_LEVEL + 1];
+	private Node root = null;
+	//universe coordinate of the root top left cell, x is row and y is column
+	private long originX = 0;
+	private long originY = 0;
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	private Rule rule = Rule.CONWAY;
+	//next state by state * 9 + live neighbors, from the rule
+	private byte[] table = Rule.CONWAY.table();
+
+	public HashLifeCells() {
+		clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Only the visible window changes, the universe is unbounded
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		this.columns = c;
+		this.rows = r;
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells
+	 */
+	@Override
+	public void step() {
+		stepBy(1);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#stepBy(long)
+	 * Advance the universe by any number of generations
+	 * Algorithm:
+	 *  - split generations into powers of two, 2^j for each bit set
+	 *  - grow the root until the pattern sits in its center quarter and it is deep enough for 2^j
+	 *  - replace the root by its center advanced 2^j generations, memoized per node
+	 */
+	@Override
+	public void stepBy(long generations) {
+		for (int j = 0; j < 63 && (generations >>> j) != 0; ++j) {
+			if (((generations >>> j) & 1) == 0 || this.root.population == 0) {
+				continue;
+			}
+			while (this.root.level < j + 3 || !isCentered(this.root)) {
+				expand();
+			}
+			long quarter = 1L << (this.root.level - 2);
+			this.root = advance(this.root, j);
+			this.originX += quarter;
+			this.originY += quarter;
+			if (this.nodes.size() > MAX_NODES) {
+				rebuildNodes();
+			}
+		}
+		shrink();
+	}
+
+	/**
+	 * Check that all live cells are within the center quarter of the node
+	 * so nothing can escape the center half during the advance
+	 * @param n: node
+	 */
+	private boolean isCentered(Node n) {
+		return n.nw.se.se.population + n.ne.sw.sw.population
+				+ n.sw.ne.ne.population + n.se.nw.nw.population == n.population;
+	}
+
+	/**
+	 * Future of the center of a node
+	 * @param n: node of level k, at least 2
+	 * @param j: log2 of generations to advance, at most k - 2
+	 * @return center of the node, level k - 1, advanced 2^j generations
+	 */
+	private Node advance(Node n, int j) {
+		if (n.population == 0) {
+			return empty(n.level - 1);
+		}
+		boolean full = j == n.level - 2;
+		if (full && n.result != null) {
+			return n.result;
+		}
+		if (!full && n.stepLog == j) {
+			return n.stepResult;
+		}
+		Node r;
+		if (n.level == 2) {
+			r = base(n);
+		} else {
+			Node n00 = n.nw;
+			Node n01 = horizontal(n.nw, n.ne);
+			Node n02 = n.ne;
+			Node n10 = vertical(n.nw, n.sw);
+			Node n11 = center(n);
+			Node n12 = vertical(n.ne, n.se);
+			Node n20 = n.sw;
+			Node n21 = horizontal(n.sw, n.se);
+			Node n22 = n.se;
+			if (full) {
+				// two half steps, the second one on the overlapping results of the first
+				int h = n.level - 3;
+				Node r00 = advance(n00, h);
+				Node r01 = advance(n01, h);
+				Node r02 = advance(n02, h);
+				Node r10 = advance(n10, h);
+				Node r11 = advance(n11, h);
+				Node r12 = advance(n12, h);
+				Node r20 = advance(n20, h);
+				Node r21 = advance(n21, h);
+				Node r22 = advance(n22, h);
+				r = join(advance(join(r00, r01, r10, r11), h), advance(join(r01, r02, r11, r12), h),
+						advance(join(r10, r11, r20, r21), h), advance(join(r11, r12, r21, r22), h));
+			} else {
+				// a single smaller step, then only the centers of the results are kept
+				Node r00 = advance(n00, j);
+				Node r01 = advance(n01, j);
+				Node r02 = advance(n02, j);
+				Node r10 = advance(n10, j);
+				Node r11 = advance(n11, j);
+				Node r12 = advance(n12, j);
+				Node r20 = advance(n20, j);
+				Node r21 = advance(n21, j);
+				Node r22 = advance(n22, j);
+				r = join(center(join(r00, r01, r10, r11)), center(join(r01, r02, r11, r12)),
+						center(join(r10, r11, r20, r21)), center(join(r11, r12, r21, r22)));
+			}
+		}
+		if (full) {
+			n.result = r;
+		} else {
+			n.stepResult = r;
+			n.stepLog = j;
+		}
+		return r;
+	}
+
+	/**
+	 * Next generation of the center 2x2 of a 4x4 node, by counting neighbors
+	 * @param n: node of level 2
+	 * @return node of level 1
+	 */
+	private Node base(Node n) {
+		// gather the 16 cells into a bit mask, row major
+		int bits = 0;
+		for (int i = 0; i < 4; ++i) {
+			for (int j = 0; j < 4; ++j) {
+				if (cell(n, i, j).population != 0) {
+					bits |= 1 << ((i * 4) + j);
+				}
+			}
+		}
+		return join(evolve(bits, 1, 1), evolve(bits, 1, 2), evolve(bits, 2, 1), evolve(bits, 2, 2));
+	}
+
+	/**
+	 * Apply the rule to one cell of a 4x4 bit mask
+	 * @param bits: cells, row major
+	 * @param i: row
+	 * @param j: column
+	 * @return leaf
+	 */
+	private Node evolve(int bits, int i, int j) {
+		int liveNeighborsCount = 0;
+		for (int r = i - 1; r <= i + 1; ++r) {
+			for (int c = j - 1; c <= j + 1; ++c) {
+				if ((r != i || c != j) && (bits & (1 << ((r * 4) + c))) != 0) {
+					liveNeighborsCount++;
+				}
+			}
+		}
+		int state = (bits >>> ((i * 4) + j)) & 1;
+		return this.table[(state * 9) + liveNeighborsCount] != 0 ? ALIVE : DEAD;
+	}
+
+	/**
+	 * Get leaf at a row and column inside a node
+	 */
+	private Node cell(Node n, long i, long j) {
+		while (n.level > 0) {
+			long half = 1L << (n.level - 1);
+			if (i < half) {
+				n = j < half ? n.nw : n.ne;
+			} else {
+				n = j < half ? n.sw : n.se;
+				i -= half;
+			}
+			if (j >= half) {
+				j -= half;
+			}
+		}
+		return n;
+	}
+
+	private Node horizontal(Node w, Node e) {
+		return join(w.ne, e.nw, w.se, e.sw);
+	}
+
+	private Node vertical(Node n, Node s) {
+		return join(n.sw, n.se, s.nw, s.ne);
+	}
+
+	private Node center(Node n) {
+		return join(n.nw.se, n.ne.sw, n.sw.ne, n.se.nw);
+	}
+
+	/**
+	 * Get the canonical node with the given children
+	 */
+	private Node join(Node nw, Node ne, Node sw, Node se) {
+		Node n = new Node(nw, ne, sw, se);
+		Node canonical = this.nodes.get(n);
+		if (canonical == null) {
+			this.nodes.put(n, n);
+			canonical = n;
+		}
+		return canonical;
+	}
+
+	/**
+	 * Get the canonical empty node of a level
+	 */
+	private Node empty(int level) {
+		Node n = this.emptyNodes[level];
+		if (n == null) {
+			if (level == 0) {
+				n = DEAD;
+			} else {
+				Node e = empty(level - 1);
+				n = join(e, e, e, e);
+			}
+			this.emptyNodes[level] = n;
+		}
+		return n;
+	}
+
+	/**
+	 * Double the root size, keeping the current root in the center
+	 */
+	private void expand() {
+		if (this.root.level >= MAX_LEVEL) {
+			throw new IllegalStateException("HashLifeCells universe is too large");
+		}
+		Node e = empty(this.root.level - 1);
+		Node r = this.root;
+		long quarter = 1L << (r.level - 1);
+		this.root = join(join(e, e, e, r.nw), join(e, e, r.ne, e), join(e, r.sw, e, e), join(r.se, e, e, e));
+		this.originX -= quarter;
+		this.originY -= quarter;
+	}
+
+	/**
+	 * Halve the root size while all live cells are in its center
+	 */
+	private void shrink() {
+		while (this.root.level > MIN_LEVEL) {
+			Node c = center(this.root);
+			if (c.population != this.root.population) {
+				break;
+			}
+			long quarter = 1L << (this.root.level - 2);
+			this.root = c;
+			this.originX += quarter;
+			this.originY += quarter;
+		}
+	}
+
+	/**
+	 * Drop all memoized nodes, only keeping those of the current universe
+	 */
+	private void rebuildNodes() {
+		for (Node n : this.nodes.values()) {
+			n.result = null;
+			n.stepResult = null;
+			n.stepLog = -1;
+		}
+		this.nodes = new HashMap<>();
+		this.emptyNodes = new Node[MAX_LEVEL + 1];
+		keep(this.root, new IdentityHashMap<Node, Boolean>());
+	}
+
+	private void keep(Node n, IdentityHashMap<Node, Boolean> visited) {
+		if (n.level == 0 || visited.put(n, Boolean.TRUE) != null) {
+			return;
+		}
+		this.nodes.put(n, n);
+		keep(n.nw, visited);
+		keep(n.ne, visited);
+		keep(n.sw, visited);
+		keep(n.se, visited);
+	}
+
+	/**
+	 * Check universe coordinate is inside the root
+	 */
+	private boolean contains(long x, long y) {
+		long size = 1L << this.root.level;
+		return x >= this.originX && y >= this.originY && x < this.originX + size && y < this.originY + size;
+	}
+
+	/**
+	 * Set a cell state, growing the root as needed
+	 * @param x
+	 * @param y
+	 * @param alive
+	 */
+	private void setCell(long x, long y, boolean alive) {
+		while (!contains(x, y)) {
+			expand();
+		}
+		this.root = setCell(this.root, x - this.originX, y - this.originY, alive);
+	}
+
+	private Node setCell(Node n, long i, long j, boolean alive) {
+		if (n.level == 0) {
+			return alive ? ALIVE : DEAD;
+		}
+		long half = 1L << (n.level - 1);
+		if (i < half) {
+			if (j < half) {
+				return join(setCell(n.nw, i, j, alive), n.ne, n.sw, n.se);
+			}
+			return join(n.nw, setCell(n.ne, i, j - half, alive), n.sw, n.se);
+		}
+		if (j < half) {
+			return join(n.nw, n.ne, setCell(n.sw, i - half, j, alive), n.se);
+		}
+		return join(n.nw, n.ne, n.sw, setCell(n.se, i - half, j - half, alive));
+	}
+
+	@Override
+	public void toggleTeleport() {
+		System.out.print("Cells.toggleTeleport the HashLife universe is unbounded!\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#isTeleport()
+	 * The universe is unbounded, cells never teleport
+	 */
+	@Override
+	public boolean isTeleport() {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * Memoized futures belong to the old rule, so they are all dropped
+	 * empty squares are assumed to stay empty, so rules bringing them to life can't be run
+	 */
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		if (r.isBirthOnZero()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " fills the unbounded universe!");
+		}
+		if (!r.equals(this.rule)) {
+			this.rule = r;
+			this.table = r.table();
+			rebuildNodes();
+		}
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state, any coordinate is valid
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		setCell(x, y, !getState(x, y));
+	}
+
+	@Override
+	public void clear() {
+		this.nodes = new HashMap<>();
+		this.emptyNodes = new Node[MAX_LEVEL + 1];
+		this.root = empty(MIN_LEVEL);
+		this.originX = 0;
+		this.originY = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (getState(x, y)) {
+			setCell(x, y, false);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (!contains(x, y)) {
+			return false;
+		}
+		return cell(this.root, x - this.originX, y - this.originY).population != 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points inside the visible window
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * empty nodes and nodes outside of the window are skipped
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		collect(this.root, this.originX, this.originY, visitor);
+	}
+
+	private void collect(Node n, long x, long y, CellVisitor visitor) {
+		long size = 1L << n.level;
+		if (n.population == 0 || x >= this.rows || y >= this.columns || x + size <= 0 || y + size <= 0) {
+			return;
+		}
+		if (n.level == 0) {
+			visitor.visit((int) x, (int) y);
+			return;
+		}
+		long half = size >>> 1;
+		collect(n.nw, x, y, visitor);
+		collect(n.ne, x, y + half, visitor);
+		collect(n.sw, x + half, y, visitor);
+		collect(n.se, x + half, y + half, visitor);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so cells of the visible window are built on demand
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		boolean[] alive = new boolean[this.rows * this.columns];
+		forEachAlive((x, y) -> alive[(x * this.columns) + y] = true);
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		for (int i = 0; i < this.rows; ++i) {
+			for (int j = 0; j < this.columns; ++j) {
+				boolean a = alive[(i * this.columns) + j];
+				list.add(new Cell(new Point(i, j), a ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
@@ -0,0 +1,343 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation on a flat byte grid padded with a ghost border,
+ * neighbors are found by adding fixed index offsets, so there are no cell objects
+ * or neighbor lists and resizing only allocates the two grids
+ *
+ */
+public class IndexedCells implements Cells {
+	private byte[] cells = new byte[0];
+	private byte[] cellsBuffer = new byte[0];
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	//padded row length, one ghost column on each side
+	private int stride = 0;
+	//index offsets of the eight neighbors from any interior cell
+	private int[] offsets = new int[0];
+	private boolean teleport = true;
+	private Rule rule = Rule.CONWAY;
+	//next state by state * 9 + live neighbors, from the rule
+	private byte[] table = Rule.CONWAY.table();
+	//pool for stepping bands of rows in parallel, null when stepping on the calling thread
+	private ForkJoinPool pool = null;
+	private final RowBandTask.RowBand stepBand = this::stepRows;
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Called when the window is resized
+	 * copy overlapping rows into the resized grid, cells outside of a smaller grid are dropped
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		int s = c + 2;
+		byte[] resized = new byte[(r + 2) * s];
+		int copyRows = Math.min(r, this.rows);
+		int copyColumns = Math.min(c, this.columns);
+		for (int i = 1; i <= copyRows; ++i) {
+			System.arraycopy(this.cells, (i * this.stride) + 1, resized, (i * s) + 1, copyColumns);
+		}
+		this.columns = c;
+		this.rows = r;
+		this.stride = s;
+		this.offsets = new int[] { -s - 1, -s, -s + 1, -1, 1, s - 1, s, s + 1 };
+		this.cells = resized;
+		this.cellsBuffer = new byte[resized.length];
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells
+	 * Algorithm:
+	 *  - with teleport, copy the opposite edges into the ghost border, otherwise it stays dead
+	 *  - for each interior index sum the eight neighbors at the precomputed offsets
+	 *  - look the next state up by state and sum into the buffer and swap buffers
+	 * the ghost border of the buffer is never read before it is rewritten
+	 */
+	@Override
+	public void step() {
+		if (this.teleport) {
+			fillGhosts();
+		}
+		if (this.pool != null) {
+			RowBandTask.invoke(this.pool, this.stepBand, this.rows);
+		} else {
+			stepRows(0, this.rows);
+		}
+		// swap arrays for next iteration
+		byte[] tmp = this.cellsBuffer;
+		this.cellsBuffer = this.cells;
+		this.cells = tmp;
+	}
+
+	/**
+	 * Set the number of threads used to step, rows are split into bands
+	 * and processed by a fork join pool
+	 * @param parallelism: number of threads, 1 or less steps on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		if (parallelism > 1) {
+			this.pool = new ForkJoinPool(parallelism);
+		}
+	}
+
+	/**
+	 * Calculate next generation for a band of rows into the buffer
+	 * @param from: first row
+	 * @param to: last row, exclusive
+	 */
+	private void stepRows(int from, int to) {
+		byte[] current = this.cells;
+		byte[] next = this.cellsBuffer;
+		int[] o = this.offsets;
+		byte[] t = this.table;
+		for (int i = from + 1; i <= to; ++i) {
+			int start = (i * this.stride) + 1;
+			int end = start + this.columns;
+			for (int k = start; k < end; ++k) {
+				int n = current[k + o[0]] + current[k + o[1]] + current[k + o[2]] + current[k + o[3]]
+						+ current[k + o[4]] + current[k + o[5]] + current[k + o[6]] + current[k + o[7]];
+				next[k] = t[(current[k] * 9) + n];
+			}
+		}
+	}
+
+	/**
+	 * Copy the opposite edges and corners into the ghost border, so wrapped
+	 * neighbors are read at the same offsets as any other
+	 */
+	private void fillGhosts() {
+		int s = this.stride;
+		int c = this.columns;
+		int r = this.rows;
+		System.arraycopy(this.cells, (r * s) + 1, this.cells, 1, c);
+		System.arraycopy(this.cells, s + 1, this.cells, ((r + 1) * s) + 1, c);
+		for (int i = 0; i <= r + 1; ++i) {
+			int row = i * s;
+			this.cells[row] = this.cells[row + c];
+			this.cells[row + c + 1] = this.cells[row + 1];
+		}
+	}
+
+	/**
+	 * Clear the ghost border, after teleport is turned off it must read as dead
+	 * @param grid: either of the two grids
+	 */
+	private void clearGhosts(byte[] grid) {
+		int s = this.stride;
+		int r = this.rows;
+		Arrays.fill(grid, 0, s, (byte) 0);
+		Arrays.fill(grid, (r + 1) * s, (r + 2) * s, (byte) 0);
+		for (int i = 1; i <= r; ++i) {
+			grid[i * s] = 0;
+			grid[(i * s) + s - 1] = 0;
+		}
+	}
+
+	@Override
+	public void toggleTeleport() {
+		this.teleport = !this.teleport;
+		if (!this.teleport) {
+			clearGhosts(this.cells);
+			clearGhosts(this.cellsBuffer);
+		}
+	}
+
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		this.rule = r;
+		this.table = r.table();
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/**
+	 * Padded index of a cell
+	 * @param x: row
+	 * @param y: column
+	 */
+	private int index(int x, int y) {
+		return ((x + 1) * this.stride) + y + 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			this.cells[index(x, y)] ^= 1;
+		} else {
+			System.out.print("Cells.toggle invalid coordinate!\n");
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.cells, (byte) 0);
+		Arrays.fill(this.cellsBuffer, (byte) 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			this.cells[index(x, y)] = 0;
+		} else {
+			System.out.print("Cells.clear invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return this.cells[index(x, y)] != 0;
+		} else {
+			System.out.print("Cells.getState invalid coordinate!\n");
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			int row = index(i, 0);
+			int bits = (i - x) * w;
+			for (int j = from; j < to; ++j) {
+				int b = j - y;
+				this.cells[row + j] = (byte) ((bitmap[bits + (b >>> 6)] >>> b) & 1);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		for (int i = Math.max(0, x); i < rowEnd && from < to; ++i) {
+			int row = index(i, 0);
+			Arrays.fill(this.cells, row + from, row + to, (byte) 0);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				if (random.nextDouble() < density) {
+					this.cells[row + j] = 1;
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		byte state = (byte) (alive ? 1 : 0);
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+				this.cells[index(x, y)] = state;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		byte[] current = this.cells;
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				if (current[row + j] != 0) {
+					visitor.visit(i, j);
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points so cells can be drawn
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so they are built on demand
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		for (int i = 0; i < this.rows; ++i) {
+			int row = index(i, 0);
+			for (int j = 0; j < this.columns; ++j) {
+				list.add(new Cell(new Point(i, j), this.cells[row + j] != 0 ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Open addressing hash set of primitive longs, with an optional small counter per key
+ * Keys are probed linearly, zero marks a free slot so the zero key is kept aside
+ */
+class LongHashSet {
+	private static final int MIN_CAPACITY = 16;
+	private long[] keys;
+	private byte[] counts;
+	private int mask;
+	private int size = 0;
+	private boolean hasZero = false;
+	private byte zeroCount = 0;
+
+	LongHashSet() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.counts = new byte[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Spread key bits so packed coordinates don't cluster
+	 */
+	private static int slot(long key, int mask) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key & mask;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean contains(long key) {
+		if (key == 0) {
+			return this.hasZero;
+		}
+		for (int i = slot(key, this.mask);; i = (i + 1) & this.mask) {
+			long k = this.keys[i];
+			if (k == key) {
+				return true;
+			}
+			if (k == 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Add key
+	 * @return true if the key was not there before
+	 */
+	boolean add(long key) {
+		return findOrInsert(key) >= 0;
+	}
+
+	/**
+	 * Add key if needed and increment its counter
+	 * @return counter after increment
+	 */
+	int increment(long key) {
+		if (key == 0) {
+			if (!this.hasZero) {
+				this.hasZero = true;
+				this.size++;
+			}
+			return ++this.zeroCount;
+		}
+		int i = findOrInsert(key);
+		if (i < 0) {
+			i = -i - 1;
+		}
+		return ++this.counts[i];
+	}
+
+	/**
+	 * Find the slot of a key, inserting it when missing
+	 * @return slot of an inserted key, or -slot - 1 of an existing one
+	 */
+	private int findOrInsert(long key) {
+		if (key == 0) {
+			if (this.hasZero) {
+				return -1;
+			}
+			this.hasZero = true;
+			this.size++;
+			return 0;
+		}
+		if ((this.size + 1) * 2 > this.keys.length) {
+			rehash(this.keys.length * 2);
+		}
+		for (int i = slot(key, this.mask);; i = (i + 1) & this.mask) {
+			long k = this.keys[i];
+			if (k == key) {
+				return -i - 1;
+			}
+			if (k == 0) {
+				this.keys[i] = key;
+				this.size++;
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Remove key, later keys of the probe chain are shifted back so no tombstones are needed
+	 * @return true if the key was there
+	 */
+	boolean remove(long key) {
+		if (key == 0) {
+			if (!this.hasZero) {
+				return false;
+			}
+			this.hasZero = false;
+			this.zeroCount = 0;
+			this.size--;
+			return true;
+		}
+		int i = slot(key, this.mask);
+		while (this.keys[i] != key) {
+			if (this.keys[i] == 0) {
+				return false;
+			}
+			i = (i + 1) & this.mask;
+		}
+		int gap = i;
+		for (int j = (gap + 1) & this.mask; this.keys[j] != 0; j = (j + 1) & this.mask) {
+			int home = slot(this.keys[j], this.mask);
+			// move the key back if its home slot is not between the gap and its slot
+			if (((j - home) & this.mask) >= ((j - gap) & this.mask)) {
+				this.keys[gap] = this.keys[j];
+				this.counts[gap] = this.counts[j];
+				gap = j;
+			}
+		}
+		this.keys[gap] = 0;
+		this.counts[gap] = 0;
+		this.size--;
+		return true;
+	}
+
+	void clear() {
+		if (this.size == 0) {
+			return;
+		}
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.counts, (byte) 0);
+		this.hasZero = false;
+		this.zeroCount = 0;
+		this.size = 0;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = this.keys;
+		byte[] oldCounts = this.counts;
+		allocate(capacity);
+		for (int j = 0; j < oldKeys.length; ++j) {
+			long key = oldKeys[j];
+			if (key != 0) {
+				int i = slot(key, this.mask);
+				while (this.keys[i] != 0) {
+					i = (i + 1) & this.mask;
+				}
+				this.keys[i] = key;
+				this.counts[i] = oldCounts[j];
+			}
+		}
+	}
+
+	/**
+	 * Number of slots to walk with {@link #keyAt(int)}, the zero key is the extra last slot
+	 */
+	int slots() {
+		return this.keys.length + 1;
+	}
+
+	/**
+	 * Key stored in a slot, check {@link #isUsed(int)} first
+	 */
+	long keyAt(int slot) {
+		return slot == this.keys.length ? 0 : this.keys[slot];
+	}
+
+	boolean isUsed(int slot) {
+		return slot == this.keys.length ? this.hasZero : this.keys[slot] != 0;
+	}
+
+	int countAt(int slot) {
+		return slot == this.keys.length ? this.zeroCount : this.counts[slot];
+	}
+}
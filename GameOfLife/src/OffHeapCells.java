@@ -0,0 +1,425 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation with the packed grid of BitGridCells kept off-heap
+ * in direct buffers, so very large boards neither count against the heap nor get
+ * copied around by the garbage collector
+ * Rows are split over several buffers since one direct buffer holds at most 2GB,
+ * direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the heap size
+ *
+ */
+public class OffHeapCells implements Cells, PackedRows {
+	//largest buffer allocated, in bytes
+	private static final int CHUNK_BYTES = 1 << 30;
+	private final int chunkBytes;
+	private LongBuffer[] cells = new LongBuffer[0];
+	private LongBuffer[] cellsBuffer = new LongBuffer[0];
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	private int words = 0;
+	private int rowsPerChunk = 1;
+	private long tailMask = 0;
+	private boolean teleport = true;
+	private Rule rule = Rule.CONWAY;
+	//rule table as words, null for B3/S23 which has its own adder logic
+	private long[] masks = null;
+	private WordKernel kernel = BitGridCells.VECTOR_KERNEL;
+	//pool for stepping bands of rows in parallel, null when stepping on the calling thread
+	private ForkJoinPool pool = null;
+	private final RowBandTask.RowBand stepBand = this::stepRows;
+
+	public OffHeapCells() {
+		this(CHUNK_BYTES);
+	}
+
+	/**
+	 * @param chunkBytes: largest buffer to allocate, at least one row always fits
+	 */
+	OffHeapCells(int chunkBytes) {
+		this.chunkBytes = chunkBytes;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Called when the window is resized
+	 * allocate new buffers, copy the overlapping rows and let go of the old buffers,
+	 * which are freed once the garbage collector finds them unreachable
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		int w = (c + 63) >>> 6;
+		int perChunk = Math.max(1, this.chunkBytes / Math.max(1, w * Long.BYTES));
+		LongBuffer[] resized = allocate(r, w, perChunk);
+		int copyRows = Math.min(r, this.rows);
+		int copyWords = Math.min(w, this.words);
+		long tail = (c & 63) == 0 ? -1L : (1L << (c & 63)) - 1;
+		long[] row = new long[w];
+		for (int i = 0; i < copyRows; ++i) {
+			Arrays.fill(row, 0);
+			this.cells[i / this.rowsPerChunk].get((i % this.rowsPerChunk) * this.words, row, 0, copyWords);
+			// drop any cells that fell off the right edge when shrinking
+			if (w > 0) {
+				row[w - 1] &= tail;
+			}
+			resized[i / perChunk].put((i % perChunk) * w, row);
+		}
+		this.columns = c;
+		this.rows = r;
+		this.words = w;
+		this.rowsPerChunk = perChunk;
+		this.tailMask = tail;
+		this.cells = resized;
+		this.cellsBuffer = allocate(r, w, perChunk);
+	}
+
+	/**
+	 * Allocate zeroed direct buffers for a grid
+	 * @param r: rows
+	 * @param w: words per row
+	 * @param perChunk: rows per buffer
+	 */
+	private static LongBuffer[] allocate(int r, int w, int perChunk) {
+		int chunks = (r + perChunk - 1) / perChunk;
+		LongBuffer[] buffers = new LongBuffer[chunks];
+		for (int k = 0; k < chunks; ++k) {
+			int chunkRows = Math.min(perChunk, r - (k * perChunk));
+			buffers[k] = ByteBuffer.allocateDirect(chunkRows * w * Long.BYTES).order(ByteOrder.nativeOrder())
+					.asLongBuffer();
+		}
+		return buffers;
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells, one row of words at a time
+	 * every word of the buffer is written, so it never needs to be cleared
+	 */
+	@Override
+	public void step() {
+		if (this.pool != null) {
+			RowBandTask.invoke(this.pool, this.stepBand, this.rows);
+		} else {
+			stepRows(0, this.rows);
+		}
+		// swap buffers for next iteration
+		LongBuffer[] tmp = this.cellsBuffer;
+		this.cellsBuffer = this.cells;
+		this.cells = tmp;
+	}
+
+	/**
+	 * Set the number of threads used to step, rows are split into bands
+	 * and processed by a fork join pool
+	 * @param parallelism: number of threads, 1 or less steps on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		if (parallelism > 1) {
+			this.pool = new ForkJoinPool(parallelism);
+		}
+	}
+
+	/**
+	 * Calculate next generation for a band of rows into the buffer
+	 * a window of three rows is read onto the heap and rolled down the band,
+	 * so each row is copied in once and out once, and stepped like BitGridCells
+	 * @param from: first row
+	 * @param to: last row, exclusive
+	 */
+	private void stepRows(int from, int to) {
+		long[] up = new long[this.words];
+		long[] mid = new long[this.words];
+		long[] down = new long[this.words];
+		long[] out = new long[this.words];
+		loadRow(from - 1, up);
+		loadRow(from, mid);
+		for (int i = from; i < to; ++i) {
+			loadRow(i + 1, down);
+			BitGridCells.stepRow(up, 0, mid, 0, down, 0, out, 0, this.words, this.columns, this.tailMask,
+					this.teleport, this.kernel, this.masks);
+			this.cellsBuffer[i / this.rowsPerChunk].put((i % this.rowsPerChunk) * this.words, out);
+			long[] tmp = up;
+			up = mid;
+			mid = down;
+			down = tmp;
+		}
+	}
+
+	/**
+	 * Copy a row of the current generation onto the heap
+	 * rows above and below the grid are the opposite edge, or empty when not teleporting
+	 * @param i: row, may be one past either edge
+	 * @param row: destination
+	 */
+	private void loadRow(int i, long[] row) {
+		if (i < 0 || i >= this.rows) {
+			if (!this.teleport) {
+				Arrays.fill(row, 0);
+				return;
+			}
+			i = i < 0 ? this.rows - 1 : 0;
+		}
+		this.cells[i / this.rowsPerChunk].get((i % this.rowsPerChunk) * this.words, row);
+	}
+
+	/**
+	 * Use the vector kernel for interior words, only has an effect when it could be loaded
+	 * @param vectorized: false to always step with the scalar loop
+	 */
+	public void setVectorized(boolean vectorized) {
+		this.kernel = vectorized ? BitGridCells.VECTOR_KERNEL : null;
+	}
+
+	@Override
+	public void toggleTeleport() {
+		this.teleport = !this.teleport;
+	}
+
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * stepped by the same row logic as BitGridCells
+	 */
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		this.rule = r;
+		this.masks = r.isConway() ? null : r.masks();
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/**
+	 * Buffer holding a cell
+	 * @param x: row
+	 */
+	private LongBuffer chunk(int x) {
+		return this.cells[x / this.rowsPerChunk];
+	}
+
+	/**
+	 * Index of the word holding a cell within its buffer
+	 * @param x: row
+	 * @param y: column
+	 */
+	private int word(int x, int y) {
+		return ((x % this.rowsPerChunk) * this.words) + (y >>> 6);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			LongBuffer b = chunk(x);
+			int k = word(x, y);
+			b.put(k, b.get(k) ^ (1L << y));
+		} else {
+			System.out.print("Cells.toggle invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear()
+	 * Zero both generations in place, the buffers are kept
+	 */
+	@Override
+	public void clear() {
+		long[] zero = new long[this.words];
+		for (int i = 0; i < this.rows; ++i) {
+			this.cells[i / this.rowsPerChunk].put((i % this.rowsPerChunk) * this.words, zero);
+			this.cellsBuffer[i / this.rowsPerChunk].put((i % this.rowsPerChunk) * this.words, zero);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			LongBuffer b = chunk(x);
+			int k = word(x, y);
+			b.put(k, b.get(k) & ~(1L << y));
+		} else {
+			System.out.print("Cells.clear invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+			return (chunk(x).get(word(x, y)) & (1L << y)) != 0;
+		} else {
+			System.out.print("Cells.getState invalid coordinate!\n");
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 * each row is copied onto the heap, changed as in BitGridCells and copied back
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		long[] row = new long[this.words];
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			chunk(i).get(word(i, 0), row);
+			BitGridCells.copyBits(row, 0, from, to, bitmap, (i - x) * w, w, y);
+			chunk(i).put(word(i, 0), row);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		int rowEnd = (int) Math.min(this.rows, (long) x + height);
+		int from = Math.max(0, y);
+		int to = (int) Math.min(this.columns, (long) y + width);
+		long[] row = new long[this.words];
+		for (int i = Math.max(0, x); i < rowEnd; ++i) {
+			chunk(i).get(word(i, 0), row);
+			BitGridCells.clearBits(row, 0, from, to);
+			chunk(i).put(word(i, 0), row);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		long[] row = new long[this.words];
+		for (int i = 0; i < this.rows; ++i) {
+			chunk(i).get(word(i, 0), row);
+			BitGridCells.fillRandomBits(row, 0, this.columns, density, random);
+			chunk(i).put(word(i, 0), row);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		for (int k = 0; k < length; ++k) {
+			int x = xs[k];
+			int y = ys[k];
+			if (x >= 0 && y >= 0 && x < this.rows && y < this.columns) {
+				LongBuffer b = chunk(x);
+				int index = word(x, y);
+				b.put(index, alive ? b.get(index) | (1L << y) : b.get(index) & ~(1L << y));
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see PackedRows#readRow(int, java.nio.LongBuffer, int)
+	 * copied buffer to buffer, the row never passes through the heap
+	 */
+	@Override
+	public void readRow(int i, LongBuffer dst, int index) {
+		dst.put(index, chunk(i), word(i, 0), this.words);
+	}
+
+	/* (non-Javadoc)
+	 * @see PackedRows#writeRow(int, java.nio.LongBuffer, int)
+	 */
+	@Override
+	public void writeRow(int i, LongBuffer src, int index) {
+		LongBuffer b = chunk(i);
+		int last = word(i, 0) + this.words - 1;
+		b.put(word(i, 0), src, index, this.words);
+		b.put(last, b.get(last) & this.tailMask);
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * words are read straight from the buffers, only set bits are visited
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		for (int i = 0; i < this.rows; ++i) {
+			LongBuffer b = chunk(i);
+			int index = word(i, 0);
+			for (int k = 0; k < this.words; ++k) {
+				long word = b.get(index + k);
+				while (word != 0) {
+					visitor.visit(i, (k << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so they are built on demand
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		long[] row = new long[this.words];
+		for (int i = 0; i < this.rows; ++i) {
+			loadRow(i, row);
+			for (int j = 0; j < this.columns; ++j) {
+				boolean alive = (row[j >>> 6] & (1L << j)) != 0;
+				list.add(new Cell(new Point(i, j), alive ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
@@ -0,0 +1,25 @@
+import java.nio.LongBuffer;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Engines that keep each row as 64 cells per long word, bit j of word k is column 64k + j
+ * lets whole rows be copied in and out, i.e. by Snapshot, without visiting cells
+ */
+interface PackedRows {
+
+	/**
+	 * Copy a row of words into a buffer
+	 * @param i: row
+	 * @param dst: destination buffer
+	 * @param index: destination word index
+	 */
+	void readRow(int i, LongBuffer dst, int index);
+
+	/**
+	 * Replace a row of words from a buffer, bits beyond the last column are dropped
+	 * @param i: row
+	 * @param src: source buffer
+	 * @param index: source word index
+	 */
+	void writeRow(int i, LongBuffer src, int index);
+}
@@ -0,0 +1,459 @@
+import java.awt.Dimension;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Streaming readers for community pattern files, decoded a character at a time into runs
+ * of live cells, so no line or cell strings are built
+ * Formats, told apart by their first character:
+ *   - RLE: '#' comments, header "x = columns, y = rows, rule = B3/S23", then b/o runs, $ for new rows, ! to end
+ *     patterns of Generations rules, i.e. rule = B2/S/C3, use '.' dead, 'A' alive, and 'B' on for decaying states
+ *   - Life 1.06: "#Life 1.06" then one "x y" coordinate pair per line, x is the column
+ *   - plaintext: '!' comments, then rows of '.' dead and 'O' live, '*' and '0' are also live
+ */
+public final class PatternReader {
+
+	private PatternReader() {
+	}
+
+	/**
+	 * Load a pattern file into an engine, which is resized to the pattern and cleared
+	 * @param path: pattern file
+	 * @param cells: engine
+	 * @return pattern size
+	 */
+	public static Dimension load(Path path, Cells cells) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+			CellsSink sink = new CellsSink(cells);
+			read(in, sink);
+			return cells.getDimension();
+		}
+	}
+
+	/**
+	 * Decode a pattern into a sink
+	 * @param in: pattern text
+	 * @param sink: receives size and runs
+	 */
+	public static void read(Reader in, PatternSink sink) throws IOException {
+		Source source = new Source(in);
+		int c = source.skipBlank();
+		if (c == '#') {
+			String comment = source.line();
+			if (comment.startsWith("Life 1.06")) {
+				readLife106(source, sink);
+				return;
+			}
+			c = skipComments(source, '#');
+		}
+		if (c == 'x') {
+			readRle(source, sink);
+		} else {
+			source.unread(c);
+			readPlaintext(source, sink);
+		}
+	}
+
+	/**
+	 * Skip comment lines starting with marker
+	 * @return first character after the comments
+	 */
+	private static int skipComments(Source source, char marker) throws IOException {
+		int c = source.skipBlank();
+		while (c == marker) {
+			source.skipLine();
+			c = source.skipBlank();
+		}
+		return c;
+	}
+
+	/**
+	 * Decode run length encoded cells, the 'x' of the header was already read
+	 */
+	private static void readRle(Source source, PatternSink sink) throws IOException {
+		String header = "x" + source.line();
+		int columns = 0;
+		int rows = 0;
+		Rule rule = null;
+		for (String field : header.split(",")) {
+			String[] pair = field.split("=");
+			if (pair.length != 2) {
+				continue;
+			}
+			String name = pair[0].trim();
+			try {
+				if (name.equals("x")) {
+					columns = Integer.parseInt(pair[1].trim());
+				} else if (name.equals("y")) {
+					rows = Integer.parseInt(pair[1].trim());
+				} else if (name.equals("rule")) {
+					rule = Rule.parse(pair[1]);
+				}
+			} catch (NumberFormatException ex) {
+				throw new IOException("invalid RLE header: " + header);
+			} catch (IllegalArgumentException ex) {
+				// rules other than B/S, i.e. other multi state ones, are read as two state patterns
+				rule = null;
+			}
+		}
+		if (columns < 0 || rows < 0) {
+			throw new IOException("invalid RLE header: " + header);
+		}
+		if (rule != null) {
+			sink.rule(rule);
+		}
+		sink.size(columns, rows);
+		// states of a Generations rule are letters, 'A' alive and 'B' on decaying
+		int states = rule == null ? 2 : rule.getStates();
+		int row = 0;
+		int column = 0;
+		int count = 0;
+		int c;
+		while ((c = source.read()) != -1 && c != '!') {
+			if (c >= '0' && c <= '9') {
+				count = (count * 10) + (c - '0');
+				continue;
+			}
+			int n = count == 0 ? 1 : count;
+			if (c == 'b' || c == '.') {
+				column += n;
+			} else if (c == '$') {
+				row += n;
+				column = 0;
+			} else if (states > 2 && c > 'A' && c < 'A' + states - 1) {
+				sink.decaying(row, column, n, c - 'A' + 1);
+				column += n;
+			} else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+				// 'o' and the states of other multi state rules are all live
+				sink.run(row, column, n);
+				column += n;
+			} else if (c == '#') {
+				source.skipLine();
+			} else if (c > ' ') {
+				throw new IOException("invalid RLE character '" + (char) c + "' at row " + row);
+			}
+			count = 0;
+		}
+		sink.end();
+	}
+
+	/**
+	 * Decode rows of characters, the size is only known at the end, so runs are buffered
+	 */
+	private static void readPlaintext(Source source, PatternSink sink) throws IOException {
+		Runs runs = new Runs();
+		int row = 0;
+		int column = 0;
+		int columns = 0;
+		int start = -1;
+		boolean lineStart = true;
+		int c;
+		while ((c = source.read()) != -1) {
+			if (lineStart && c == '!') {
+				source.skipLine();
+				continue;
+			}
+			lineStart = false;
+			boolean alive = c == 'O' || c == '*' || c == '0';
+			if (alive && start < 0) {
+				start = column;
+			} else if (!alive && start >= 0) {
+				runs.add(row, start, column - start);
+				start = -1;
+			}
+			if (c == '\n') {
+				columns = Math.max(columns, column);
+				++row;
+				column = 0;
+				lineStart = true;
+			} else if (c != '\r') {
+				++column;
+			}
+		}
+		if (start >= 0) {
+			runs.add(row, start, column - start);
+		}
+		columns = Math.max(columns, column);
+		if (column > 0) {
+			++row;
+		}
+		sink.size(columns, row);
+		runs.emit(sink);
+		sink.end();
+	}
+
+	/**
+	 * Decode coordinate pairs, shifted so the top left live cell sits at the origin
+	 */
+	private static void readLife106(Source source, PatternSink sink) throws IOException {
+		Runs cells = new Runs();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		while (true) {
+			int c = skipComments(source, '#');
+			if (c == -1) {
+				break;
+			}
+			source.unread(c);
+			int x = source.readInt();
+			int y = source.readInt();
+			// cells are kept as row and column, x is the column
+			cells.add(y, x, 1);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		if (cells.size == 0) {
+			sink.size(0, 0);
+		} else {
+			sink.size((int) ((long) maxX - minX + 1), (int) ((long) maxY - minY + 1));
+			cells.sortShifted(minY, minX);
+			cells.emit(sink);
+		}
+		sink.end();
+	}
+
+	/**
+	 * Character source with one character of push back
+	 */
+	private static final class Source {
+		private final Reader in;
+		private int pushed = -2;
+
+		Source(Reader in) {
+			this.in = in;
+		}
+
+		int read() throws IOException {
+			if (this.pushed != -2) {
+				int c = this.pushed;
+				this.pushed = -2;
+				return c;
+			}
+			return this.in.read();
+		}
+
+		void unread(int c) {
+			this.pushed = c;
+		}
+
+		/**
+		 * @return first character that is not white space, or -1
+		 */
+		int skipBlank() throws IOException {
+			int c = read();
+			while (c != -1 && c <= ' ') {
+				c = read();
+			}
+			return c;
+		}
+
+		void skipLine() throws IOException {
+			int c = read();
+			while (c != -1 && c != '\n') {
+				c = read();
+			}
+		}
+
+		/**
+		 * Rest of the current line, only used for short header lines
+		 */
+		String line() throws IOException {
+			StringBuilder sb = new StringBuilder();
+			int c = read();
+			while (c != -1 && c != '\n') {
+				if (c != '\r') {
+					sb.append((char) c);
+				}
+				c = read();
+			}
+			return sb.toString();
+		}
+
+		int readInt() throws IOException {
+			int c = skipBlank();
+			boolean negative = c == '-';
+			if (negative || c == '+') {
+				c = read();
+			}
+			if (c < '0' || c > '9') {
+				throw new IOException("number expected");
+			}
+			long value = 0;
+			while (c >= '0' && c <= '9') {
+				value = (value * 10) + (c - '0');
+				if (value > Integer.MAX_VALUE + 1L) {
+					throw new IOException("number too large");
+				}
+				c = read();
+			}
+			unread(c);
+			return (int) (negative ? -value : value);
+		}
+	}
+
+	/**
+	 * Growable list of runs, row and column packed in one long
+	 */
+	private static final class Runs {
+		private long[] keys = new long[64];
+		private int[] lengths = new int[64];
+		private int size = 0;
+
+		void add(int row, int column, int length) {
+			if (this.size == this.keys.length) {
+				this.keys = Arrays.copyOf(this.keys, this.size * 2);
+				this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+			}
+			this.keys[this.size] = ((long) row << 32) | (column & 0xffffffffL);
+			this.lengths[this.size] = length;
+			++this.size;
+		}
+
+		/**
+		 * Shift single cells to non negative coordinates and sort them in row order
+		 * @param row: smallest row
+		 * @param column: smallest column
+		 */
+		void sortShifted(int row, int column) {
+			for (int k = 0; k < this.size; ++k) {
+				long r = (int) (this.keys[k] >> 32) - (long) row;
+				long c = (int) this.keys[k] - (long) column;
+				this.keys[k] = (r << 32) | c;
+			}
+			Arrays.sort(this.keys, 0, this.size);
+		}
+
+		/**
+		 * Send all runs to the sink, neighboring runs are merged
+		 */
+		void emit(PatternSink sink) {
+			int k = 0;
+			while (k < this.size) {
+				long key = this.keys[k];
+				int length = this.lengths[k];
+				++k;
+				// merge runs that continue this one, and drop duplicate cells
+				while (k < this.size && this.keys[k] <= key + length) {
+					length = (int) Math.max(length, this.keys[k] + this.lengths[k] - key);
+					++k;
+				}
+				sink.run((int) (key >> 32), (int) key, length);
+			}
+		}
+	}
+
+	/**
+	 * Sink that sizes an engine to the pattern and sets its cells,
+	 * runs are gathered into a packed row which is set on the engine as a region
+	 */
+	static final class CellsSink implements PatternSink {
+		private final Cells cells;
+		private int columns = 0;
+		private int rows = 0;
+		private long[] row = new long[0];
+		private int current = -1;
+		//decaying runs as row, column, length and state, set after the live rows
+		private int[] decaying = new int[0];
+		private int decayingSize = 0;
+
+		CellsSink(Cells cells) {
+			this.cells = cells;
+		}
+
+		@Override
+		public void rule(Rule rule) throws IOException {
+			try {
+				this.cells.setRule(rule);
+			} catch (IllegalArgumentException ex) {
+				// two state engines load Generations patterns as they always did, live cells only
+				if (!rule.isGenerations()) {
+					throw new IOException(ex.getMessage());
+				}
+			}
+		}
+
+		@Override
+		public void size(int c, int r) {
+			this.columns = c;
+			this.rows = r;
+			this.cells.resize(c, r);
+			this.cells.clear();
+			this.row = new long[(c + 63) >>> 6];
+		}
+
+		@Override
+		public void run(int i, int j, int length) {
+			if (i < 0 || i >= this.rows || j >= this.columns) {
+				return;
+			}
+			if (j < 0) {
+				length += j;
+				j = 0;
+			}
+			int end = (int) Math.min(this.columns, (long) j + length);
+			if (i != this.current) {
+				flush();
+				this.current = i;
+			}
+			// set bits j to end - 1, a word at a time
+			for (int y = j; y < end;) {
+				int k = y >>> 6;
+				int wordEnd = Math.min(end, (k + 1) << 6);
+				int bits = wordEnd - y;
+				long mask = bits == 64 ? -1L : ((1L << bits) - 1) << y;
+				this.row[k] |= mask;
+				y = wordEnd;
+			}
+		}
+
+		@Override
+		public void decaying(int i, int j, int length, int state) {
+			if (!(this.cells instanceof GenerationsCells)) {
+				return;
+			}
+			if (this.decayingSize + 4 > this.decaying.length) {
+				this.decaying = Arrays.copyOf(this.decaying, Math.max(64, this.decaying.length * 2));
+			}
+			this.decaying[this.decayingSize++] = i;
+			this.decaying[this.decayingSize++] = j;
+			this.decaying[this.decayingSize++] = length;
+			this.decaying[this.decayingSize++] = state;
+		}
+
+		@Override
+		public void end() {
+			flush();
+			// live rows are set as whole regions, so decaying cells go in afterwards
+			GenerationsCells g = this.decayingSize > 0 ? (GenerationsCells) this.cells : null;
+			for (int k = 0; k < this.decayingSize; k += 4) {
+				int i = this.decaying[k];
+				int end = (int) Math.min(this.columns, (long) this.decaying[k + 1] + this.decaying[k + 2]);
+				if (i < 0 || i >= this.rows) {
+					continue;
+				}
+				for (int j = Math.max(0, this.decaying[k + 1]); j < end; ++j) {
+					g.setCellState(i, j, this.decaying[k + 3]);
+				}
+			}
+			this.decayingSize = 0;
+		}
+
+		private void flush() {
+			if (this.current >= 0 && this.row.length > 0) {
+				this.cells.setRegion(this.current, 0, this.columns, 1, this.row);
+				Arrays.fill(this.row, 0);
+			}
+			this.current = -1;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+import java.io.IOException;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Receives a decoded pattern as runs of live cells
+ * size comes first, runs follow in row order, then end
+ * decaying runs of multi state patterns come in row order too, but not in order with live runs
+ * a rule, when the pattern names one, comes before size
+ */
+interface PatternSink {
+
+	/**
+	 * Rule the pattern was made for, only called when it names a B/S rule
+	 * @param rule
+	 * @throws IOException if the rule can't be run
+	 */
+	default void rule(Rule rule) throws IOException {
+		/* ignored unless the sink steps the pattern */
+	}
+
+	/**
+	 * Size of the pattern, before any run
+	 * @param columns
+	 * @param rows
+	 */
+	void size(int columns, int rows);
+
+	/**
+	 * A run of live cells along a row
+	 * @param row
+	 * @param column: first live cell
+	 * @param length: number of live cells
+	 */
+	void run(int row, int column, int length);
+
+	/**
+	 * A run of cells decaying under a Generations rule, after the rule, ignored unless
+	 * the sink keeps more than two states, live cells always come as plain runs
+	 * @param row
+	 * @param column: first cell
+	 * @param length: number of cells
+	 * @param state: 2 and up
+	 */
+	default void decaying(int row, int column, int length, int state) {
+		/* decaying cells are dead to two state sinks */
+	}
+
+	/**
+	 * No more runs
+	 */
+	void end();
+}
@@ -0,0 +1,51 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Fork/join task that splits a range of grid rows into bands processed in parallel
+ */
+class RowBandTask extends RecursiveAction {
+	private static final long serialVersionUID = -4150262358049962791L;
+
+	/**
+	 * Work done on a band of rows, from inclusive to exclusive
+	 */
+	interface RowBand {
+		void apply(int from, int to);
+	}
+
+	private final RowBand band;
+	private final int from;
+	private final int to;
+	private final int grain;
+
+	RowBandTask(RowBand band, int from, int to, int grain) {
+		this.band = band;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+	/**
+	 * Run band over all rows using the pool, splitting into roughly four bands per thread
+	 * @param pool: fork join pool
+	 * @param band: work to do
+	 * @param rows: number of rows
+	 */
+	static void invoke(ForkJoinPool pool, RowBand band, int rows) {
+		int grain = Math.max(1, rows / (pool.getParallelism() * 4));
+		pool.invoke(new RowBandTask(band, 0, rows, grain));
+	}
+
+	@Override
+	protected void compute() {
+		if (this.to - this.from <= this.grain) {
+			this.band.apply(this.from, this.to);
+		} else {
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new RowBandTask(this.band, this.from, mid, this.grain),
+					new RowBandTask(this.band, mid, this.to, this.grain));
+		}
+	}
+}
@@ -0,0 +1,221 @@
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Outer totalistic rule of a life-like automaton, in B/S notation,
+ * i.e. B3/S23 is Conway's game, B36/S23 HighLife, B3678/S34678 Day and Night, B2/S Seeds
+ * Generations rules add a number of states, B2/S/C3 is Brian's Brain and B2/S345/C4 Star Wars,
+ * state 1 is alive, a live cell that doesn't survive decays through states 2 to C - 1 and then dies,
+ * only live cells are counted as neighbors and decaying cells can't come alive
+ * The rule is compiled into a table indexed by state * 9 + live neighbors, 18 entries for two states,
+ * so engines apply any rule with a single lookup instead of branches
+ * Packed engines use the two state table as words of all ones or all zeros
+ */
+public final class Rule {
+	//B3/S23, also written 23/3
+	public static final Rule CONWAY = new Rule(1 << 3, (1 << 2) | (1 << 3));
+	//B 0-8 / S 0-8 / C states, or the older S/B/states form 23/3, states are optional
+	private static final Pattern BS = Pattern.compile("(?i)B([0-8]*)/?S([0-8]*)(?:/?[CG](\\d+))?");
+	private static final Pattern SB = Pattern.compile("(?i)S?([0-8]*)/B?([0-8]*)(?:/C?(\\d+))?");
+	//all nine neighbor counts, 0 to 8
+	private static final int COUNTS = 0x1ff;
+	//most states, so a state fits in an unsigned byte
+	public static final int MAX_STATES = 256;
+
+	private final int birth;
+	private final int survival;
+	private final int states;
+	//next state by state * 9 + live neighbors
+	private final byte[] table;
+	//the same table, each entry a word of all ones or all zeros
+	private final long[] masks = new long[18];
+
+	/**
+	 * @param birth: bit n set if a dead cell with n live neighbors comes alive
+	 * @param survival: bit n set if a live cell with n live neighbors stays alive
+	 */
+	public Rule(int birth, int survival) {
+		this(birth, survival, 2);
+	}
+
+	/**
+	 * @param birth: bit n set if a dead cell with n live neighbors comes alive
+	 * @param survival: bit n set if a live cell with n live neighbors stays alive
+	 * @param states: 2 for life-like rules, more for Generations rules, up to MAX_STATES
+	 */
+	public Rule(int birth, int survival, int states) {
+		if ((birth & ~COUNTS) != 0 || (survival & ~COUNTS) != 0) {
+			throw new IllegalArgumentException("Rule neighbor counts are 0 to 8");
+		}
+		if (states < 2 || states > MAX_STATES) {
+			throw new IllegalArgumentException("Rule states are 2 to " + MAX_STATES);
+		}
+		this.birth = birth;
+		this.survival = survival;
+		this.states = states;
+		this.table = new byte[states * 9];
+		for (int n = 0; n <= 8; ++n) {
+			this.table[n] = (byte) ((birth >>> n) & 1);
+			// a live cell that doesn't survive dies, or starts decaying
+			this.table[9 + n] = (byte) (((survival >>> n) & 1) != 0 ? 1 : (states > 2 ? 2 : 0));
+			this.masks[n] = -(long) this.table[n];
+			this.masks[9 + n] = -(long) ((survival >>> n) & 1);
+			for (int state = 2; state < states; ++state) {
+				this.table[(state * 9) + n] = (byte) ((state + 1) % states);
+			}
+		}
+	}
+
+	/**
+	 * Parse a rule, as B3/S23, b3s23 or the older survival first form 23/3,
+	 * Generations rules end with the number of states, as B2/S/C3 or /2/3
+	 * @param rule: rule string
+	 * @return rule, CONWAY itself for B3/S23
+	 * @throws IllegalArgumentException if the rule can't be read
+	 */
+	public static Rule parse(String rule) {
+		String s = rule.trim();
+		Matcher m = BS.matcher(s);
+		int b;
+		int sv;
+		if (m.matches()) {
+			b = counts(m.group(1));
+			sv = counts(m.group(2));
+		} else {
+			m = SB.matcher(s);
+			if (!m.matches()) {
+				throw new IllegalArgumentException("Invalid rule " + rule + ", expected B/S notation such as B3/S23");
+			}
+			sv = counts(m.group(1));
+			b = counts(m.group(2));
+		}
+		int n = 2;
+		if (m.group(3) != null) {
+			try {
+				n = Integer.parseInt(m.group(3));
+			} catch (NumberFormatException ex) {
+				n = -1;
+			}
+		}
+		if (b == CONWAY.birth && sv == CONWAY.survival && n == 2) {
+			return CONWAY;
+		}
+		return new Rule(b, sv, n);
+	}
+
+	private static int counts(String digits) {
+		int mask = 0;
+		for (int i = 0; i < digits.length(); ++i) {
+			mask |= 1 << (digits.charAt(i) - '0');
+		}
+		return mask;
+	}
+
+	/**
+	 * @return bit n set if a dead cell with n live neighbors comes alive
+	 */
+	public int getBirth() {
+		return this.birth;
+	}
+
+	/**
+	 * @return bit n set if a live cell with n live neighbors stays alive
+	 */
+	public int getSurvival() {
+		return this.survival;
+	}
+
+	/**
+	 * @return number of states, 2 unless a Generations rule
+	 */
+	public int getStates() {
+		return this.states;
+	}
+
+	/**
+	 * @return true for Generations rules, whose cells decay through more than two states
+	 * two state engines can't run these rules
+	 */
+	public boolean isGenerations() {
+		return this.states > 2;
+	}
+
+	/**
+	 * @return true for B3/S23, which engines may step with dedicated code
+	 */
+	public boolean isConway() {
+		return this.birth == CONWAY.birth && this.survival == CONWAY.survival && this.states == 2;
+	}
+
+	/**
+	 * A dead cell with no live neighbors comes alive, so empty space doesn't stay empty
+	 * unbounded engines can't run these rules
+	 */
+	public boolean isBirthOnZero() {
+		return (this.birth & 1) != 0;
+	}
+
+	/**
+	 * Next state of a cell
+	 * @param state: 1 alive, 0 dead, 2 and up decaying
+	 * @param count: live neighbors, 0 to 8
+	 * @return next state
+	 */
+	public int next(int state, int count) {
+		return this.table[(state * 9) + count] & 0xff;
+	}
+
+	/**
+	 * Next state table indexed by state * 9 + live neighbors, states * 9 entries, not to be changed
+	 * entries are unsigned bytes
+	 */
+	byte[] table() {
+		return this.table;
+	}
+
+	/**
+	 * Two state table as words of all ones or all zeros, not to be changed
+	 */
+	long[] masks() {
+		return this.masks;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Rule)) {
+			return false;
+		}
+		Rule r = (Rule) o;
+		return this.birth == r.birth && this.survival == r.survival && this.states == r.states;
+	}
+
+	@Override
+	public int hashCode() {
+		return (((this.states << 9) | this.birth) << 9) | this.survival;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 * B/S notation, counts in increasing order, then /C and the states of a Generations rule
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("B");
+		for (int n = 0; n <= 8; ++n) {
+			if ((this.birth & (1 << n)) != 0) {
+				sb.append(n);
+			}
+		}
+		sb.append("/S");
+		for (int n = 0; n <= 8; ++n) {
+			if ((this.survival & (1 << n)) != 0) {
+				sb.append(n);
+			}
+		}
+		if (this.states > 2) {
+			sb.append("/C").append(this.states);
+		}
+		return sb.toString();
+	}
+}
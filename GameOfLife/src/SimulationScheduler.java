@@ -0,0 +1,264 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Drives a simulation from a single reusable worker thread, so stepping never recurses
+ * and no thread is created per play
+ * Frames are scheduled at a fixed rate, or with rate 0 back to back, each one stepping
+ * for up to a frame period before showing the generation it reached
+ * Every step runs on the worker, so steps requested while playing are never interleaved
+ * Steps and frames of many generations are stepped in chunks of about a frame, pausing cancels
+ * them between chunks, so a pause waits about a frame whatever was asked for
+ */
+public class SimulationScheduler {
+	//frames per second shown when running at unlimited rate
+	private static final int FRAME_RATE = 60;
+	private static final long FRAME_NANOS = 1000000000L / FRAME_RATE;
+
+	/**
+	 * Work the scheduler runs on its worker thread
+	 */
+	public interface Simulation {
+
+		/**
+		 * Step generations, without showing them
+		 * @param generations: number of generations
+		 */
+		void advance(int generations);
+
+		/**
+		 * Show the generation reached, i.e. publish it for painting
+		 */
+		void frame();
+	}
+
+	private final Simulation simulation;
+	private final ScheduledExecutorService worker;
+	private ScheduledFuture<?> task = null;
+	private int rate;
+	private volatile int generationsPerFrame = 1;
+	//steps queued or running
+	private final AtomicInteger steps = new AtomicInteger();
+	//counts pauses, steps requested before the last pause stop stepping
+	private volatile long pauses = 0;
+
+	/**
+	 * @param simulation: work to schedule
+	 * @param rate: frames per second, 0 or less for unlimited
+	 */
+	public SimulationScheduler(Simulation simulation, int rate) {
+		this.simulation = simulation;
+		this.rate = rate;
+		this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "Simulation");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Start stepping continuously, nothing happens if already running
+	 */
+	public synchronized void start() {
+		if (this.task != null) {
+			return;
+		}
+		long requested = this.pauses;
+		if (this.rate > 0) {
+			this.task = this.worker.scheduleAtFixedRate(() -> tick(requested), 0, 1000000000L / this.rate,
+					TimeUnit.NANOSECONDS);
+		} else {
+			this.task = this.worker.scheduleWithFixedDelay(() -> burst(requested), 0, 1, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Stop stepping continuously and cancel the steps requested, returns once the frame
+	 * or chunk of generations in progress is done, so the simulation can be changed safely afterwards
+	 * not to be called from the simulation itself
+	 */
+	public void pause() {
+		synchronized (this) {
+			++this.pauses;
+			if (this.task != null) {
+				this.task.cancel(false);
+				this.task = null;
+			}
+		}
+		// outside the lock, so isRunning and the like don't wait for the worker
+		awaitWorker();
+	}
+
+	/**
+	 * Continue stepping after a pause, with the current rate and generations per frame
+	 */
+	public void resume() {
+		start();
+	}
+
+	public synchronized boolean isRunning() {
+		return this.task != null;
+	}
+
+	/**
+	 * @return true while running or while requested steps are queued or stepping,
+	 * the simulation can't be changed safely from another thread until it is false
+	 */
+	public boolean isBusy() {
+		return this.steps.get() > 0 || isRunning();
+	}
+
+	/**
+	 * Step generations and show the last one, after any frame in progress
+	 * generations are stepped in chunks, see advance, a pause stops stepping after the chunk
+	 * in progress and shows the generation reached
+	 * @param generations: number of generations
+	 */
+	public void step(int generations) {
+		long requested = this.pauses;
+		this.steps.incrementAndGet();
+		this.worker.execute(() -> {
+			try {
+				if (advance(generations, requested) > 0) {
+					this.simulation.frame();
+				}
+			} catch (RuntimeException ex) {
+				// the worker drops exceptions, so at least report it
+				ex.printStackTrace();
+			} finally {
+				this.steps.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Set the frame rate, a running simulation continues at the new rate
+	 * @param rate: frames per second, 0 or less for unlimited
+	 */
+	public void setRate(int rate) {
+		synchronized (this) {
+			this.rate = rate;
+			if (this.task == null) {
+				return;
+			}
+		}
+		pause();
+		start();
+	}
+
+	public synchronized int getRate() {
+		return this.rate;
+	}
+
+	/**
+	 * Set the number of generations stepped for every frame shown
+	 * @param n: generations, at least 1
+	 */
+	public void setGenerationsPerFrame(int n) {
+		this.generationsPerFrame = Math.max(1, n);
+	}
+
+	public int getGenerationsPerFrame() {
+		return this.generationsPerFrame;
+	}
+
+	/**
+	 * Stop the worker thread, the scheduler can't be used afterwards
+	 */
+	public synchronized void shutdown() {
+		this.task = null;
+		this.worker.shutdownNow();
+	}
+
+	/**
+	 * Step generations in chunks, the first of one generation and each doubled while the last took
+	 * less than half a frame, until all are stepped or the scheduler is paused
+	 * a chunk takes about a frame at most, so a pause waits about that long however many generations
+	 * were asked for, while engines stepping many generations quickly, i.e. HashLife, get large chunks
+	 * @param generations: number of generations
+	 * @param requested: pauses counted when the stepping was requested
+	 * @return generations stepped
+	 */
+	private int advance(int generations, long requested) {
+		int left = generations;
+		int chunk = 1;
+		while (left > 0 && this.pauses == requested) {
+			int n = Math.min(left, chunk);
+			long start = System.nanoTime();
+			this.simulation.advance(n);
+			left -= n;
+			if (System.nanoTime() - start < FRAME_NANOS / 2 && chunk < (1 << 30)) {
+				chunk <<= 1;
+			}
+		}
+		return generations - left;
+	}
+
+	/**
+	 * Frame at a fixed rate, one frame worth of generations, fewer if paused meanwhile
+	 * @param requested: pauses counted when started
+	 */
+	private void tick(long requested) {
+		try {
+			if (advance(this.generationsPerFrame, requested) > 0) {
+				this.simulation.frame();
+			}
+		} catch (RuntimeException ex) {
+			// a periodic task that throws is silently dropped, so at least report it
+			ex.printStackTrace();
+			stopped();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Frame at unlimited rate, step for a frame period then show the generation reached
+	 * frames of generations are stepped in chunks as by tick, so a pause waits about a chunk
+	 * and step requests wait about a frame
+	 * @param requested: pauses counted when started
+	 */
+	private void burst(long requested) {
+		long end = System.nanoTime() + FRAME_NANOS;
+		try {
+			int stepped = 0;
+			do {
+				stepped += advance(this.generationsPerFrame, requested);
+			} while (System.nanoTime() < end && this.pauses == requested);
+			if (stepped > 0) {
+				this.simulation.frame();
+			}
+		} catch (RuntimeException ex) {
+			ex.printStackTrace();
+			stopped();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Forget the periodic task after it threw, it won't run again, so the scheduler isn't running
+	 */
+	private synchronized void stopped() {
+		if (this.task != null) {
+			this.task.cancel(false);
+			this.task = null;
+		}
+	}
+
+	/**
+	 * Wait until everything submitted to the worker before now has run
+	 */
+	private void awaitWorker() {
+		try {
+			this.worker.submit(() -> { /* marker */ }).get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
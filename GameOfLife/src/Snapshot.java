@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Binary board snapshots, written and read through memory mapped files
+ * Format, all little endian:
+ *   - 64 byte header: magic "GOLS", version, columns, rows, generation,
+ *     birth and survival neighbor count masks, flags (bit 0 teleport),
+ *     states of a Generations rule or 0 for two states, zero padding
+ *   - rows of (columns + 63) / 64 words, bit j of word k is column 64k + j
+ *     only live cells are saved, cells decaying under a Generations rule read back dead
+ * Packed engines copy whole rows between their storage and the mapping,
+ * any other engine is written a cell at a time and read a row region at a time
+ */
+public final class Snapshot {
+	private static final int MAGIC = 0x534c4f47;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 64;
+	//rows are mapped in windows of about this many bytes, a mapping holds at most 2GB
+	private static final long WINDOW_BYTES = 1L << 30;
+	private static final int FLAG_TELEPORT = 1;
+
+	private final int columns;
+	private final int rows;
+	private final long generation;
+	private final boolean teleport;
+	private final Rule rule;
+
+	private Snapshot(int columns, int rows, long generation, boolean teleport, Rule rule) {
+		this.columns = columns;
+		this.rows = rows;
+		this.generation = generation;
+		this.teleport = teleport;
+		this.rule = rule;
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * @return generation the board was saved at
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/**
+	 * @return rule the board was stepped by
+	 */
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/**
+	 * Write the board of an engine to a file, replacing it
+	 * @param cells: engine
+	 * @param generation: generation number to record
+	 * @param path: snapshot file
+	 */
+	public static void save(Cells cells, long generation, Path path) throws IOException {
+		int c = cells.getDimension().width;
+		int r = cells.getDimension().height;
+		int w = (c + 63) >>> 6;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(c).putInt(r).putLong(generation);
+			Rule rule = cells.getRule();
+			header.putInt(rule.getBirth()).putInt(rule.getSurvival()).putInt(cells.isTeleport() ? FLAG_TELEPORT : 0)
+					.putInt(rule.isGenerations() ? rule.getStates() : 0);
+			header.rewind();
+			channel.write(header, 0);
+
+			long[] row = new long[w];
+			int windowRows = windowRows(w);
+			for (int from = 0; from < r; from += windowRows) {
+				int to = Math.min(r, from + windowRows);
+				LongBuffer words = map(channel, FileChannel.MapMode.READ_WRITE, from, to, w);
+				for (int i = from; i < to; ++i) {
+					int index = (i - from) * w;
+					if (cells instanceof PackedRows) {
+						((PackedRows) cells).readRow(i, words, index);
+					} else {
+						Arrays.fill(row, 0);
+						for (int j = 0; j < c; ++j) {
+							if (cells.getState(i, j)) {
+								row[j >>> 6] |= 1L << j;
+							}
+						}
+						words.put(index, row);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Restore a board from a file into an engine
+	 * the engine is resized to the snapshot, cleared, and teleport and rule set to match
+	 * @param cells: engine
+	 * @param path: snapshot file
+	 * @return snapshot header, i.e. for the generation number
+	 */
+	public static Snapshot load(Cells cells, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (channel.read(header, 0) != HEADER_BYTES || header.getInt(0) != MAGIC) {
+				throw new IOException(path + " is not a snapshot");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IOException(path + " has unknown snapshot version " + header.getInt(4));
+			}
+			Rule rule;
+			try {
+				int states = header.getInt(36);
+				rule = new Rule(header.getInt(24), header.getInt(28), states == 0 ? 2 : states);
+				if (!rule.equals(cells.getRule())) {
+					cells.setRule(rule);
+				}
+			} catch (IllegalArgumentException ex) {
+				throw new IOException(path + " has a rule this engine can't run: " + ex.getMessage());
+			}
+			Snapshot snapshot = new Snapshot(header.getInt(8), header.getInt(12), header.getLong(16),
+					(header.getInt(32) & FLAG_TELEPORT) != 0, rule);
+			int c = snapshot.columns;
+			int r = snapshot.rows;
+			int w = (c + 63) >>> 6;
+			if (c < 0 || r < 0 || channel.size() < HEADER_BYTES + ((long) r * w * Long.BYTES)) {
+				throw new IOException(path + " is truncated");
+			}
+
+			cells.resize(c, r);
+			cells.clear();
+			if (cells.isTeleport() != snapshot.teleport) {
+				cells.toggleTeleport();
+			}
+			if (w == 0) {
+				return snapshot;
+			}
+			long[] row = new long[w];
+			int windowRows = windowRows(w);
+			for (int from = 0; from < r; from += windowRows) {
+				int to = Math.min(r, from + windowRows);
+				LongBuffer words = map(channel, FileChannel.MapMode.READ_ONLY, from, to, w);
+				for (int i = from; i < to; ++i) {
+					int index = (i - from) * w;
+					if (cells instanceof PackedRows) {
+						((PackedRows) cells).writeRow(i, words, index);
+					} else {
+						words.get(index, row);
+						cells.setRegion(i, 0, c, 1, row);
+					}
+				}
+			}
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Rows per mapped window, at least one
+	 * @param w: words per row
+	 */
+	private static int windowRows(int w) {
+		return (int) Math.max(1, WINDOW_BYTES / Math.max(1, (long) w * Long.BYTES));
+	}
+
+	/**
+	 * Map a window of rows as little endian words
+	 * @param channel: snapshot file
+	 * @param mode: read only, or read write to extend and fill the file
+	 * @param from: first row
+	 * @param to: last row, exclusive
+	 * @param w: words per row
+	 */
+	private static LongBuffer map(FileChannel channel, FileChannel.MapMode mode, int from, int to, int w)
+			throws IOException {
+		long position = HEADER_BYTES + ((long) from * w * Long.BYTES);
+		long size = (long) (to - from) * w * Long.BYTES;
+		MappedByteBuffer mapped = channel.map(mode, position, size);
+		return mapped.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+	}
+}
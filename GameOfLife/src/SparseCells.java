@@ -0,0 +1,367 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Cells interface implementation that only stores live cells, as packed row and column
+ * longs in a primitive hash set, so memory follows population rather than board area
+ * The universe is unbounded and the grid dimensions only set the visible window,
+ * with teleport on, cells wrap around the window edges instead
+ *
+ */
+public class SparseCells implements Cells {
+	private LongHashSet cells = new LongHashSet();
+	private LongHashSet cellsBuffer = new LongHashSet();
+	//live neighbor count of every cell next to a live cell
+	private final LongHashSet neighbors = new LongHashSet();
+	private Dimension dimensions = null;
+	private int columns = 0;
+	private int rows = 0;
+	private boolean teleport = false;
+	private Rule rule = Rule.CONWAY;
+	//next state by state * 9 + live neighbors, from the rule
+	private byte[] table = Rule.CONWAY.table();
+
+	/**
+	 * Pack a coordinate into a single key
+	 * @param x: row
+	 * @param y: column
+	 */
+	static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	static int unpackX(long key) {
+		return (int) (key >> 32);
+	}
+
+	static int unpackY(long key) {
+		return (int) key;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#resize(int, int)
+	 * Only the visible window changes, cells outside of it are kept
+	 */
+	@Override
+	public void resize(int c, int r) {
+		this.dimensions = new Dimension(c, r);
+		this.columns = c;
+		this.rows = r;
+		if (this.teleport) {
+			dropOutside();
+		}
+	}
+
+	@Override
+	public Dimension getDimension() {
+		return this.dimensions;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#step()
+	 * Calculate next generation of cells
+	 * Algorithm:
+	 *  - each live cell adds one to the count of its eight neighbors
+	 *  - only counted cells can be alive next, so births are only searched around live cells
+	 *  - apply the rule, one lookup by state and live neighbors, B3/S23 unless set
+	 *  - live cells without live neighbors were never counted, they only stay alive with S0
+	 *  - swap sets, readying for next step
+	 */
+	@Override
+	public void step() {
+		this.neighbors.clear();
+		for (int s = 0; s < this.cells.slots(); ++s) {
+			if (this.cells.isUsed(s)) {
+				long key = this.cells.keyAt(s);
+				int x = unpackX(key);
+				int y = unpackY(key);
+				for (int i = -1; i <= 1; ++i) {
+					for (int j = -1; j <= 1; ++j) {
+						if (i != 0 || j != 0) {
+							countNeighbor(x + i, y + j);
+						}
+					}
+				}
+			}
+		}
+		this.cellsBuffer.clear();
+		for (int s = 0; s < this.neighbors.slots(); ++s) {
+			if (this.neighbors.isUsed(s)) {
+				int liveNeighborsCount = this.neighbors.countAt(s);
+				long key = this.neighbors.keyAt(s);
+				int state = this.cells.contains(key) ? 1 : 0;
+				if (this.table[(state * 9) + liveNeighborsCount] != 0) {
+					this.cellsBuffer.add(key);
+				}
+			}
+		}
+		if ((this.rule.getSurvival() & 1) != 0) {
+			for (int s = 0; s < this.cells.slots(); ++s) {
+				if (this.cells.isUsed(s) && !this.neighbors.contains(this.cells.keyAt(s))) {
+					this.cellsBuffer.add(this.cells.keyAt(s));
+				}
+			}
+		}
+		// swap sets for next iteration
+		LongHashSet tmp = this.cellsBuffer;
+		this.cellsBuffer = this.cells;
+		this.cells = tmp;
+	}
+
+	private void countNeighbor(int x, int y) {
+		if (this.teleport) {
+			if (x < 0) {
+				x = this.rows - 1;
+			} else if (x >= this.rows) {
+				x = 0;
+			}
+			if (y < 0) {
+				y = this.columns - 1;
+			} else if (y >= this.columns) {
+				y = 0;
+			}
+		}
+		this.neighbors.increment(pack(x, y));
+	}
+
+	/**
+	 * Remove cells outside of the window, since with teleport on the window is the whole universe
+	 */
+	private void dropOutside() {
+		this.cellsBuffer.clear();
+		for (int s = 0; s < this.cells.slots(); ++s) {
+			if (this.cells.isUsed(s) && isVisible(this.cells.keyAt(s))) {
+				this.cellsBuffer.add(this.cells.keyAt(s));
+			}
+		}
+		LongHashSet tmp = this.cellsBuffer;
+		this.cellsBuffer = this.cells;
+		this.cells = tmp;
+	}
+
+	private boolean isVisible(long key) {
+		int x = unpackX(key);
+		int y = unpackY(key);
+		return x >= 0 && y >= 0 && x < this.rows && y < this.columns;
+	}
+
+	/**
+	 * Check coordinate is valid, any coordinate unless teleporting
+	 */
+	private boolean isValid(int x, int y) {
+		return !this.teleport || (x >= 0 && y >= 0 && x < this.rows && y < this.columns);
+	}
+
+	@Override
+	public void toggleTeleport() {
+		this.teleport = !this.teleport;
+		if (this.teleport) {
+			dropOutside();
+		}
+	}
+
+	@Override
+	public boolean isTeleport() {
+		return this.teleport;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRule(Rule)
+	 * Only live cells are stored, so rules bringing empty space to life can't be run
+	 */
+	@Override
+	public void setRule(Rule r) {
+		if (r.isGenerations()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " has more than two states, use GenerationsCells!");
+		}
+		if (r.isBirthOnZero()) {
+			throw new IllegalArgumentException("Cells.setRule " + r + " fills the unbounded universe!");
+		}
+		this.rule = r;
+		this.table = r.table();
+	}
+
+	@Override
+	public Rule getRule() {
+		return this.rule;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#toggle(int, int)
+	 * Flip cell state
+	 */
+	@Override
+	public void toggle(int x, int y) {
+		if (isValid(x, y)) {
+			long key = pack(x, y);
+			if (!this.cells.remove(key)) {
+				this.cells.add(key);
+			}
+		} else {
+			System.out.print("Cells.toggle invalid coordinate!\n");
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.cells = new LongHashSet();
+		this.cellsBuffer = new LongHashSet();
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clear(int, int)
+	 * Clear cell
+	 */
+	@Override
+	public void clear(int x, int y) {
+		if (isValid(x, y)) {
+			this.cells.remove(pack(x, y));
+		} else {
+			System.out.print("Cells.clear invalid coordinate!\n");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getState(int, int)
+	 * Get cell state
+	 */
+	@Override
+	public boolean getState(int x, int y) {
+		if (isValid(x, y)) {
+			return this.cells.contains(pack(x, y));
+		} else {
+			System.out.print("Cells.getState invalid coordinate!\n");
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#setRegion(int, int, int, int, long[])
+	 * regions may lie outside of the window unless teleporting
+	 */
+	@Override
+	public void setRegion(int x, int y, int width, int height, long[] bitmap) {
+		int w = (width + 63) >>> 6;
+		for (int i = 0; i < height; ++i) {
+			for (int j = 0; j < width; ++j) {
+				if (isValid(x + i, y + j)) {
+					long key = pack(x + i, y + j);
+					if ((bitmap[(i * w) + (j >>> 6)] & (1L << j)) != 0) {
+						this.cells.add(key);
+					} else {
+						this.cells.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#clearRegion(int, int, int, int)
+	 * a region larger than the population is cleared by scanning the live cells instead
+	 */
+	@Override
+	public void clearRegion(int x, int y, int width, int height) {
+		if ((long) width * height > this.cells.size()) {
+			long[] keys = new long[this.cells.size()];
+			int n = 0;
+			for (int s = 0; s < this.cells.slots(); ++s) {
+				if (this.cells.isUsed(s)) {
+					long key = this.cells.keyAt(s);
+					long i = (long) unpackX(key) - x;
+					long j = (long) unpackY(key) - y;
+					if (i >= 0 && j >= 0 && i < height && j < width) {
+						keys[n++] = key;
+					}
+				}
+			}
+			// removing moves keys between slots, so they are collected first
+			for (int k = 0; k < n; ++k) {
+				this.cells.remove(keys[k]);
+			}
+		} else {
+			for (int i = 0; i < height; ++i) {
+				for (int j = 0; j < width; ++j) {
+					this.cells.remove(pack(x + i, y + j));
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#fillRandom(double, long)
+	 * only the visible window is filled
+	 */
+	@Override
+	public void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < this.rows; ++i) {
+			for (int j = 0; j < this.columns; ++j) {
+				if (random.nextDouble() < density) {
+					this.cells.add(pack(i, j));
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#applyBatch(int[], int[], int, boolean)
+	 */
+	@Override
+	public void applyBatch(int[] xs, int[] ys, int length, boolean alive) {
+		for (int k = 0; k < length; ++k) {
+			if (isValid(xs[k], ys[k])) {
+				if (alive) {
+					this.cells.add(pack(xs[k], ys[k]));
+				} else {
+					this.cells.remove(pack(xs[k], ys[k]));
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#forEachAlive(CellVisitor)
+	 * live cells inside the visible window, in hash order
+	 */
+	@Override
+	public void forEachAlive(CellVisitor visitor) {
+		LongHashSet current = this.cells;
+		for (int s = 0; s < current.slots(); ++s) {
+			if (current.isUsed(s) && isVisible(current.keyAt(s))) {
+				long key = current.keyAt(s);
+				visitor.visit(unpackX(key), unpackY(key));
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getAlivePoints()
+	 * Build array with live cell points inside the visible window
+	 */
+	@Override
+	public ArrayList<Point> getAlivePoints() {
+		ArrayList<Point> points = new ArrayList<>(0);
+		forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	/* (non-Javadoc)
+	 * @see Cells#getCells()
+	 * There are no cell objects in this engine, so cells of the visible window are built on demand
+	 */
+	@Override
+	public ArrayList<Cell> getCells() {
+		ArrayList<Cell> list = new ArrayList<>(this.rows * this.columns);
+		for (int i = 0; i < this.rows; ++i) {
+			for (int j = 0; j < this.columns; ++j) {
+				boolean alive = this.cells.contains(pack(i, j));
+				list.add(new Cell(new Point(i, j), alive ? CellState.ALIVE : CellState.DEAD));
+			}
+		}
+		return list;
+	}
+}
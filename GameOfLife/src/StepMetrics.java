@@ -0,0 +1,211 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Population and activity of an engine, one record per generation stepped
+ * The engine counts births, deaths and cells evaluated while stepping and keeps its population
+ * up to date, so a record is a handful of additions, nothing is allocated or visited
+ * Records are written by the stepping thread only, JMX and other readers see values at most
+ * a generation old, listeners are called on the stepping thread and must return quickly
+ * Latency is kept in a histogram of power of two buckets of nanoseconds
+ */
+public class StepMetrics implements StepMetricsMBean {
+	//buckets of 1ns up to 2^BUCKETS ns, about 9 minutes
+	private static final int BUCKETS = 40;
+
+	/**
+	 * Called after every generation, on the stepping thread, with primitives only
+	 */
+	public interface StepListener {
+		/**
+		 * @param generation: generations stepped since the last reset
+		 * @param population: live cells
+		 * @param births: cells that came alive
+		 * @param deaths: cells that died
+		 * @param evaluated: cells the rule was applied to
+		 * @param nanos: time the generation took to step
+		 */
+		void stepped(long generation, long population, long births, long deaths, long evaluated, long nanos);
+	}
+
+	private final CopyOnWriteArrayList<StepListener> listeners = new CopyOnWriteArrayList<>();
+	private final long[] histogram = new long[BUCKETS];
+	//written last by record, so readers of the other fields see a whole generation
+	private volatile long generations = 0;
+	private long population = 0;
+	private long births = 0;
+	private long deaths = 0;
+	private long evaluated = 0;
+	private long lastNanos = 0;
+	private long totalBirths = 0;
+	private long totalDeaths = 0;
+	private long totalEvaluated = 0;
+	private long totalNanos = 0;
+	private ObjectName name = null;
+
+	/**
+	 * Count a generation, called by the engine at the end of each step
+	 * @param pop: live cells after the step
+	 * @param born: cells that came alive
+	 * @param died: cells that died
+	 * @param cells: cells the rule was applied to
+	 * @param nanos: time the step took
+	 */
+	public void record(long pop, long born, long died, long cells, long nanos) {
+		this.population = pop;
+		this.births = born;
+		this.deaths = died;
+		this.evaluated = cells;
+		this.lastNanos = nanos;
+		this.totalBirths += born;
+		this.totalDeaths += died;
+		this.totalEvaluated += cells;
+		this.totalNanos += nanos;
+		++this.histogram[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)))];
+		long g = this.generations + 1;
+		this.generations = g;
+		for (StepListener listener : this.listeners) {
+			listener.stepped(g, pop, born, died, cells, nanos);
+		}
+	}
+
+	public void addListener(StepListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(StepListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Register with the platform MBean server, as GameOfLife:type=StepMetrics,name=name
+	 * @param n: name telling engines apart, i.e. GameGrid
+	 * @throws JMException if the name is taken or invalid
+	 */
+	public void register(String n) throws JMException {
+		ObjectName objectName = new ObjectName("GameOfLife:type=StepMetrics,name=" + ObjectName.quote(n));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.name = objectName;
+	}
+
+	/**
+	 * Remove from the platform MBean server, if registered
+	 */
+	public void unregister() throws JMException {
+		if (this.name != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+			this.name = null;
+		}
+	}
+
+	@Override
+	public long getGenerations() {
+		return this.generations;
+	}
+
+	@Override
+	public long getPopulation() {
+		return this.population;
+	}
+
+	@Override
+	public long getBirths() {
+		return this.births;
+	}
+
+	@Override
+	public long getDeaths() {
+		return this.deaths;
+	}
+
+	@Override
+	public long getCellsEvaluated() {
+		return this.evaluated;
+	}
+
+	@Override
+	public long getTotalBirths() {
+		return this.totalBirths;
+	}
+
+	@Override
+	public long getTotalDeaths() {
+		return this.totalDeaths;
+	}
+
+	@Override
+	public long getTotalCellsEvaluated() {
+		return this.totalEvaluated;
+	}
+
+	@Override
+	public long getLastStepNanos() {
+		return this.lastNanos;
+	}
+
+	@Override
+	public double getMeanStepNanos() {
+		long g = this.generations;
+		return g == 0 ? 0 : (double) this.totalNanos / g;
+	}
+
+	@Override
+	public long getMedianStepNanos() {
+		return percentile(0.5);
+	}
+
+	@Override
+	public long getP99StepNanos() {
+		return percentile(0.99);
+	}
+
+	@Override
+	public long[] getStepNanosHistogram() {
+		return this.histogram.clone();
+	}
+
+	/**
+	 * Upper bound of the bucket a fraction of the steps are within
+	 * @param fraction: 0 to 1
+	 * @return nanoseconds, 0 before any step
+	 */
+	private long percentile(double fraction) {
+		long[] counts = getStepNanosHistogram();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int k = 0; k < BUCKETS && total > 0; ++k) {
+			seen += counts[k];
+			if (seen >= rank) {
+				return (2L << k) - 1;
+			}
+		}
+		return 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see StepMetricsMBean#reset()
+	 * counts racing a step may be lost, the population is kept
+	 */
+	@Override
+	public void reset() {
+		this.births = 0;
+		this.deaths = 0;
+		this.evaluated = 0;
+		this.lastNanos = 0;
+		this.totalBirths = 0;
+		this.totalDeaths = 0;
+		this.totalEvaluated = 0;
+		this.totalNanos = 0;
+		Arrays.fill(this.histogram, 0);
+		this.generations = 0;
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * JMX view of StepMetrics, attributes of the last generation, totals since the last reset,
+ * and step latency percentiles read from the histogram
+ */
+public interface StepMetricsMBean {
+
+	/**
+	 * @return generations stepped since the last reset
+	 */
+	long getGenerations();
+
+	/**
+	 * @return live cells after the last generation
+	 */
+	long getPopulation();
+
+	/**
+	 * @return cells that came alive in the last generation
+	 */
+	long getBirths();
+
+	/**
+	 * @return cells that died in the last generation
+	 */
+	long getDeaths();
+
+	/**
+	 * @return cells the rule was applied to in the last generation, skipped cells aren't counted
+	 */
+	long getCellsEvaluated();
+
+	long getTotalBirths();
+
+	long getTotalDeaths();
+
+	long getTotalCellsEvaluated();
+
+	/**
+	 * @return nanoseconds the last generation took to step
+	 */
+	long getLastStepNanos();
+
+	/**
+	 * @return mean nanoseconds per generation
+	 */
+	double getMeanStepNanos();
+
+	/**
+	 * @return upper bound of the bucket holding the median step, in nanoseconds
+	 */
+	long getMedianStepNanos();
+
+	/**
+	 * @return upper bound of the bucket holding the 99th percentile step, in nanoseconds
+	 */
+	long getP99StepNanos();
+
+	/**
+	 * @return steps by latency, bucket k counts steps of 2^k to 2^(k+1) - 1 nanoseconds
+	 */
+	long[] getStepNanosHistogram();
+
+	/**
+	 * Start counting again
+	 */
+	void reset();
+}
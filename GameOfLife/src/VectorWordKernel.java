@@ -0,0 +1,116 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Word kernel on the incubating vector API, the same adder logic as BitGridCells.evolve
+ * runs on as many words per instruction as the hardware vectors hold
+ * Only loaded when the jdk.incubator.vector module is present, i.e. java --add-modules jdk.incubator.vector
+ */
+final class VectorWordKernel implements WordKernel {
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * Number of words handled per instruction
+	 */
+	static int lanes() {
+		return SPECIES.length();
+	}
+
+	/* (non-Javadoc)
+	 * @see WordKernel#stepWords(long[], int, long[], int, long[], int, long[], int, int, int, long[])
+	 * neighbor words are read as vectors shifted one word to each side
+	 */
+	@Override
+	public int stepWords(long[] up, int upOffset, long[] mid, int midOffset, long[] down, int downOffset,
+			long[] out, int outOffset, int from, int to, long[] rule) {
+		int lanes = SPECIES.length();
+		int k = from;
+		for (; k + lanes <= to; k += lanes) {
+			LongVector u = LongVector.fromArray(SPECIES, up, upOffset + k);
+			LongVector m = LongVector.fromArray(SPECIES, mid, midOffset + k);
+			LongVector d = LongVector.fromArray(SPECIES, down, downOffset + k);
+			LongVector next = evolve(m,
+					west(u, up, upOffset + k), u, east(u, up, upOffset + k),
+					west(m, mid, midOffset + k), east(m, mid, midOffset + k),
+					west(d, down, downOffset + k), d, east(d, down, downOffset + k), rule);
+			next.intoArray(out, outOffset + k);
+		}
+		return k;
+	}
+
+	/**
+	 * Cells shifted one column right, carrying the top bit of the previous word
+	 */
+	private static LongVector west(LongVector v, long[] row, int offset) {
+		LongVector previous = LongVector.fromArray(SPECIES, row, offset - 1);
+		return v.lanewise(VectorOperators.LSHL, 1).or(previous.lanewise(VectorOperators.LSHR, 63));
+	}
+
+	/**
+	 * Cells shifted one column left, carrying the bottom bit of the next word
+	 */
+	private static LongVector east(LongVector v, long[] row, int offset) {
+		LongVector following = LongVector.fromArray(SPECIES, row, offset + 1);
+		return v.lanewise(VectorOperators.LSHR, 1).or(following.lanewise(VectorOperators.LSHL, 63));
+	}
+
+	/**
+	 * Apply the game rules to every lane, see BitGridCells.evolve
+	 * @param rule: rule table as words, null for B3/S23
+	 */
+	private static LongVector evolve(LongVector alive, LongVector a, LongVector b, LongVector c, LongVector d,
+			LongVector e, LongVector f, LongVector g, LongVector h, long[] rule) {
+		LongVector abx = a.lanewise(VectorOperators.XOR, b);
+		LongVector s0 = abx.lanewise(VectorOperators.XOR, c);
+		LongVector c0 = a.and(b).or(c.and(abx));
+		LongVector dex = d.lanewise(VectorOperators.XOR, e);
+		LongVector s1 = dex.lanewise(VectorOperators.XOR, f);
+		LongVector c1 = d.and(e).or(f.and(dex));
+		LongVector s2 = g.lanewise(VectorOperators.XOR, h);
+		LongVector c2 = g.and(h);
+		LongVector sx = s0.lanewise(VectorOperators.XOR, s1);
+		LongVector ones = sx.lanewise(VectorOperators.XOR, s2);
+		LongVector c3 = s0.and(s1).or(s2.and(sx));
+		LongVector cx = c0.lanewise(VectorOperators.XOR, c1);
+		LongVector t = cx.lanewise(VectorOperators.XOR, c2);
+		LongVector f0 = c0.and(c1).or(c2.and(cx));
+		LongVector twos = t.lanewise(VectorOperators.XOR, c3);
+		LongVector f1 = t.and(c3);
+		LongVector fours = f0.lanewise(VectorOperators.XOR, f1);
+		LongVector eights = f0.and(f1);
+		if (rule != null) {
+			return lookup(alive, ones, twos, fours, eights, rule);
+		}
+		return twos.lanewise(VectorOperators.AND_NOT, fours).lanewise(VectorOperators.AND_NOT, eights)
+				.and(ones.or(alive));
+	}
+
+	/**
+	 * Look any rule up in every lane, see the rule table evolve of BitGridCells
+	 */
+	private static LongVector lookup(LongVector alive, LongVector ones, LongVector twos, LongVector fours,
+			LongVector eights, long[] t) {
+		LongVector q0 = select(entry(alive, t, 0), entry(alive, t, 1), ones);
+		LongVector q1 = select(entry(alive, t, 2), entry(alive, t, 3), ones);
+		LongVector q2 = select(entry(alive, t, 4), entry(alive, t, 5), ones);
+		LongVector q3 = select(entry(alive, t, 6), entry(alive, t, 7), ones);
+		LongVector lo = select(select(q0, q1, twos), select(q2, q3, twos), fours);
+		return select(lo, entry(alive, t, 8), eights);
+	}
+
+	/**
+	 * Table entry for a count, birth for dead lanes and survival for live ones
+	 */
+	private static LongVector entry(LongVector alive, long[] t, int n) {
+		return alive.and(t[n] ^ t[9 + n]).lanewise(VectorOperators.XOR, t[n]);
+	}
+
+	/**
+	 * Bits of b where sel is set, of a elsewhere
+	 */
+	private static LongVector select(LongVector a, LongVector b, LongVector sel) {
+		return a.lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.XOR, b).and(sel));
+	}
+}
@@ -0,0 +1,222 @@
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Renders the visible part of a generation straight into the int pixels of an image,
+ * each cell a block of zoom by zoom pixels, so a whole board is shown with one drawImage
+ * The viewport is the pixel position of the board's top left corner and the zoom,
+ * at zoom GRID_ZOOM and above the last pixel row and column of each cell is a grid line
+ * Pixels are rendered a cell row at a time, one scanline is built and copied down the block
+ */
+public class ViewportRenderer {
+	//pixels per cell to choose from
+	private static final int[] ZOOMS = { 1, 2, 3, 4, 6, 8, 10, 14, 20, 28 };
+	//smallest zoom with grid lines between cells
+	private static final int GRID_ZOOM = 4;
+	private final int cellColor;
+	private final int deadColor;
+	private final int gridColor;
+	private final int backgroundColor;
+	//zoom to begin with, largest zoom used to fit a board
+	private final int defaultZoom;
+
+	private BufferedImage image = null;
+	private int[] pixels = new int[0];
+	private int[] scanline = new int[0];
+	private int[] gridline = new int[0];
+	//pixel position of the top left corner of the board, read when repainting from other threads
+	private volatile int originX;
+	private volatile int originY;
+	private volatile int zoom;
+
+	/**
+	 * @param zoom: pixels per cell to begin with
+	 * @param cell: live cell color
+	 * @param dead: dead cell color
+	 * @param grid: grid line color
+	 * @param background: color outside of the board
+	 */
+	public ViewportRenderer(int zoom, Color cell, Color dead, Color grid, Color background) {
+		this.defaultZoom = zoom;
+		this.zoom = zoom;
+		this.originX = zoom;
+		this.originY = zoom;
+		this.cellColor = cell.getRGB();
+		this.deadColor = dead.getRGB();
+		this.gridColor = grid.getRGB();
+		this.backgroundColor = background.getRGB();
+	}
+
+	public int getZoom() {
+		return this.zoom;
+	}
+
+	/**
+	 * Zoom one level in or out, keeping the cell under a pixel in place
+	 * @param levels: positive to zoom in, negative to zoom out
+	 * @param px: pixel column to zoom around
+	 * @param py: pixel row to zoom around
+	 */
+	public void zoom(int levels, int px, int py) {
+		int level = 0;
+		while (level < ZOOMS.length - 1 && ZOOMS[level] < this.zoom) {
+			++level;
+		}
+		int z = ZOOMS[Math.max(0, Math.min(ZOOMS.length - 1, level + levels))];
+		// the board coordinate under the pixel stays under it
+		this.originX = px - (int) Math.round((px - this.originX) * (double) z / this.zoom);
+		this.originY = py - (int) Math.round((py - this.originY) * (double) z / this.zoom);
+		this.zoom = z;
+	}
+
+	/**
+	 * Move the viewport
+	 * @param dx: pixels to move the board right
+	 * @param dy: pixels to move the board down
+	 */
+	public void pan(int dx, int dy) {
+		this.originX += dx;
+		this.originY += dy;
+	}
+
+	/**
+	 * Zoom to the largest level, up to the one begun with, showing the whole board with
+	 * a cell of margin around it, the board's top left corner one cell in from the panel's
+	 * @param columns: board columns
+	 * @param rows: board rows
+	 * @param width: panel width
+	 * @param height: panel height
+	 */
+	public void fit(int columns, int rows, int width, int height) {
+		int level = ZOOMS.length - 1;
+		while (level > 0 && (ZOOMS[level] > this.defaultZoom || (columns + 2) * ZOOMS[level] > width
+				|| (rows + 2) * ZOOMS[level] > height)) {
+			--level;
+		}
+		this.zoom = ZOOMS[level];
+		this.originX = this.zoom;
+		this.originY = this.zoom;
+	}
+
+	/**
+	 * @param px: pixel column
+	 * @return board column under the pixel, may be off the board
+	 */
+	public int columnAt(int px) {
+		return Math.floorDiv(px - this.originX, this.zoom);
+	}
+
+	/**
+	 * @param py: pixel row
+	 * @return board row under the pixel, may be off the board
+	 */
+	public int rowAt(int py) {
+		return Math.floorDiv(py - this.originY, this.zoom);
+	}
+
+	/**
+	 * Pixels covered by cells
+	 * @param cells: x column, y row, width columns and height rows
+	 * @return pixel rectangle
+	 */
+	public Rectangle toPixels(Rectangle cells) {
+		int z = this.zoom;
+		return new Rectangle(this.originX + (cells.x * z), this.originY + (cells.y * z), cells.width * z,
+				cells.height * z);
+	}
+
+	/**
+	 * @return image rendered last, null before the first render
+	 */
+	public BufferedImage getImage() {
+		return this.image;
+	}
+
+	/**
+	 * Render the pixels of a region into the image, which is resized to the panel when needed
+	 * @param g: generation to show, null for an empty board
+	 * @param width: panel width
+	 * @param height: panel height
+	 * @param clip: pixels to render, null for all
+	 */
+	public void render(Generation g, int width, int height, Rectangle clip) {
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+			this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+			this.scanline = new int[width];
+			this.gridline = new int[width];
+			clip = null;
+		}
+		Rectangle r = new Rectangle(0, 0, width, height);
+		if (clip != null) {
+			r = r.intersection(clip);
+			if (r.isEmpty()) {
+				return;
+			}
+		}
+		int z = this.zoom;
+		int ox = this.originX;
+		int oy = this.originY;
+		int columns = g == null ? 0 : g.getColumns();
+		int rows = g == null ? 0 : g.getRows();
+		boolean grid = z >= GRID_ZOOM;
+		// pixels left and right of the board in the region
+		int boardLeft = Math.max(r.x, Math.min(r.x + r.width, ox));
+		int boardRight = Math.max(boardLeft, Math.min(r.x + r.width, ox + (columns * z)));
+		if (grid) {
+			Arrays.fill(this.gridline, r.x, boardLeft, this.backgroundColor);
+			Arrays.fill(this.gridline, boardLeft, boardRight, this.gridColor);
+			Arrays.fill(this.gridline, boardRight, r.x + r.width, this.backgroundColor);
+		}
+		int py = r.y;
+		int end = r.y + r.height;
+		while (py < end) {
+			int row = Math.floorDiv(py - oy, z);
+			// pixel rows of this cell row within the region
+			int blockEnd = Math.min(end, oy + ((row + 1) * z));
+			if (row < 0 || row >= rows) {
+				for (; py < blockEnd; ++py) {
+					Arrays.fill(this.pixels, (py * width) + r.x, (py * width) + r.x + r.width, this.backgroundColor);
+				}
+				continue;
+			}
+			buildScanline(g, row, z, ox, r.x, r.x + r.width, boardLeft, boardRight);
+			// the last pixel row of a cell is a grid line
+			int cellEnd = grid ? Math.min(blockEnd, oy + ((row + 1) * z) - 1) : blockEnd;
+			for (; py < cellEnd; ++py) {
+				System.arraycopy(this.scanline, r.x, this.pixels, (py * width) + r.x, r.width);
+			}
+			for (; py < blockEnd; ++py) {
+				System.arraycopy(this.gridline, r.x, this.pixels, (py * width) + r.x, r.width);
+			}
+		}
+	}
+
+	/**
+	 * Build the pixels of one cell row between two pixel columns
+	 */
+	private void buildScanline(Generation g, int row, int z, int ox, int from, int to, int boardLeft,
+			int boardRight) {
+		boolean grid = z >= GRID_ZOOM;
+		Arrays.fill(this.scanline, from, boardLeft, this.backgroundColor);
+		Arrays.fill(this.scanline, boardRight, to, this.backgroundColor);
+		int px = boardLeft;
+		while (px < boardRight) {
+			int column = Math.floorDiv(px - ox, z);
+			int blockEnd = Math.min(boardRight, ox + ((column + 1) * z));
+			int cellEnd = grid ? Math.min(blockEnd, ox + ((column + 1) * z) - 1) : blockEnd;
+			Arrays.fill(this.scanline, px, cellEnd, g.getState(row, column) ? this.cellColor : this.deadColor);
+			if (cellEnd < blockEnd) {
+				this.scanline[cellEnd] = this.gridColor;
+			}
+			px = blockEnd;
+		}
+	}
+}
@@ -0,0 +1,18 @@
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Steps a run of packed words of one row several words at a time
+ * the scalar loop in BitGridCells handles the edge words and whatever is left over
+ */
+interface WordKernel {
+
+	/**
+	 * Calculate the next generation of interior words of a row, rows are array and offset
+	 * words from - 1 and to are read, so from must be 1 or more and to at most the last word
+	 * @param from: first word
+	 * @param to: last word, exclusive
+	 * @param rule: rule table as words, see Rule.masks, null for B3/S23
+	 * @return first word not calculated, from if none were
+	 */
+	int stepWords(long[] up, int upOffset, long[] mid, int midOffset, long[] down, int downOffset,
+			long[] out, int outOffset, int from, int to, long[] rule);
+}
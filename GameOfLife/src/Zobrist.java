@@ -0,0 +1,75 @@
+import java.nio.LongBuffer;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Zobrist hashing of boards, each cell position has a random looking 64 bit key and a board hashes
+ * to the XOR of the keys of its live cells, so a cell changing state changes the hash by its key alone
+ * Keys are computed from the coordinates by a 64 bit mix, no key table is stored,
+ * and they don't depend on the board size, so every engine hashes the same board the same
+ * Under Generations rules decaying cells have a key per state too, so they aren't mistaken for dead
+ */
+public final class Zobrist {
+	private static final long SEED = 0x9e3779b97f4a7c15L;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Key of a cell position
+	 * @param x: row
+	 * @param y: column
+	 */
+	public static long key(int x, int y) {
+		// splitmix64 finalizer over both coordinates
+		long z = (((long) x << 32) | (y & 0xffffffffL)) + SEED;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Key of a cell position in a state of a multi state rule, 0 for dead cells,
+	 * the plain key for live ones, so two state boards hash the same on any engine
+	 * @param x: row
+	 * @param y: column
+	 * @param state: 0 dead, 1 alive, 2 and up decaying
+	 */
+	public static long key(int x, int y, int state) {
+		if (state <= 1) {
+			return state == 0 ? 0 : key(x, y);
+		}
+		long z = key(x, y) + (state * SEED);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Hash of the live cells of an engine, packed rows are read a word at a time,
+	 * other engines are visited
+	 * @param cells: engine
+	 */
+	public static long hash(Cells cells) {
+		if (!(cells instanceof PackedRows)) {
+			long[] hash = new long[1];
+			cells.forEachAlive((x, y) -> hash[0] ^= key(x, y));
+			return hash[0];
+		}
+		int c = cells.getDimension().width;
+		int r = cells.getDimension().height;
+		long[] row = new long[(c + 63) >>> 6];
+		LongBuffer words = LongBuffer.wrap(row);
+		long hash = 0;
+		for (int i = 0; i < r; ++i) {
+			((PackedRows) cells).readRow(i, words, 0);
+			for (int k = 0; k < row.length; ++k) {
+				long word = row[k];
+				while (word != 0) {
+					hash ^= key(i, (k << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+		return hash;
+	}
+}
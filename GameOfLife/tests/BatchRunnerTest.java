@@ -0,0 +1,201 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the headless runner loads patterns, steps the chosen engine and reads its options
+ */
+public class BatchRunnerTest {
+	private static final String WALKER = "..........n...0......n....0.....n..000.....n..........n..........";
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 */
+	@Test
+	public void testRunWalker() throws Exception {
+		for (String engine : new String[] { "CellsImpl", "BitGridCells", "SparseCells", "HashLifeCells" }) {
+			BatchRunner runner = new BatchRunner();
+			runner.parse(new String[] { "-e", engine, "-p", WALKER, "-n", "8" });
+			BatchRunner.Result result = runner.run();
+			org.junit.Assert.assertEquals(engine, 8, result.generations);
+			org.junit.Assert.assertEquals(engine, 5, result.population);
+			org.junit.Assert.assertEquals(engine, 60, result.cells);
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * A run stops once the board repeats, or skips whole periods and ends on the same board
+	 * as stepping every generation
+	 */
+	@Test
+	public void testRunCycle() throws Exception {
+		String[] args = { "-s", "8x8", "-p", ".0n..0n000", "-n", "1001" };
+		BatchRunner straight = new BatchRunner();
+		straight.parse(args);
+		BatchRunner.Result expected = straight.run();
+		org.junit.Assert.assertEquals(0, expected.period);
+		BatchRunner stop = new BatchRunner();
+		stop.parse(new String[] { "-s", "8x8", "-p", ".0n..0n000", "-n", "1001", "-cycle", "stop" });
+		BatchRunner.Result stopped = stop.run();
+		org.junit.Assert.assertEquals(32, stopped.generations);
+		org.junit.Assert.assertEquals(0, stopped.settled);
+		org.junit.Assert.assertEquals(32, stopped.period);
+		Path path = Files.createTempFile("gameoflife", ".gols");
+		try {
+			BatchRunner skip = new BatchRunner();
+			skip.parse(new String[] { "-s", "8x8", "-p", ".0n..0n000", "-n", "1001", "-cycle", "skip", "-e",
+					"CellsImpl", "-save", path.toString() });
+			BatchRunner.Result skipped = skip.run();
+			org.junit.Assert.assertEquals(1001, skipped.generations);
+			org.junit.Assert.assertEquals(32, skipped.period);
+			org.junit.Assert.assertEquals(expected.population, skipped.population);
+			Cells cells = new BitGridCells();
+			org.junit.Assert.assertEquals(1001, Snapshot.load(cells, path).getGeneration());
+			Cells reference = new BitGridCells();
+			reference.resize(8, 8);
+			reference.toggle(0, 1);
+			reference.toggle(1, 2);
+			reference.toggle(2, 0);
+			reference.toggle(2, 1);
+			reference.toggle(2, 2);
+			reference.stepBy(1001);
+			org.junit.Assert.assertEquals(reference.getAlivePoints(), cells.getAlivePoints());
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * Step metrics are reported for engines that count them, and refused by the others
+	 */
+	@Test
+	public void testRunMetrics() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BatchRunner runner = new BatchRunner();
+		runner.setOutput(new PrintStream(bytes, true));
+		runner.parse(new String[] { "-e", "CellsImpl", "-p", WALKER, "-n", "8", "-metrics" });
+		runner.report(runner.run());
+		org.junit.Assert.assertTrue(bytes.toString(), bytes.toString().contains("\nbirths 16 deaths 16 "));
+		BatchRunner packed = new BatchRunner();
+		packed.parse(new String[] { "-p", WALKER, "-metrics" });
+		try {
+			packed.run();
+			org.junit.Assert.fail("metrics counted by BitGridCells");
+		} catch (IllegalArgumentException ex) {
+			org.junit.Assert.assertTrue(ex.getMessage().contains("BitGridCells"));
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * Snapshots are printed at every interval, and once more for a partial last interval
+	 */
+	@Test
+	public void testRunSnapshots() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BatchRunner runner = new BatchRunner();
+		runner.setOutput(new PrintStream(bytes, true));
+		runner.parse(new String[] { "-p", WALKER, "-n", "10", "-o", "4", "-q" });
+		runner.run();
+		String[] lines = bytes.toString().split("\n");
+		org.junit.Assert.assertEquals(3, lines.length);
+		org.junit.Assert.assertTrue(lines[0].startsWith("generation 4 population 5"));
+		org.junit.Assert.assertTrue(lines[1].startsWith("generation 8 population 5"));
+		org.junit.Assert.assertTrue(lines[2].startsWith("generation 10 population 5"));
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * A pattern larger than the board is clipped to it, quietly
+	 */
+	@Test
+	public void testRunClipped() throws Exception {
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(bytes, true));
+		try {
+			for (String engine : new String[] { "CellsImpl", "IndexedCells", "BitGridCells", "SparseCells",
+					"GenerationsCells" }) {
+				BatchRunner runner = new BatchRunner();
+				runner.setOutput(stdout);
+				runner.parse(new String[] { "-e", engine, "-s", "3x2", "-p", "0000n0.00n0000", "-n", "0", "-q" });
+				BatchRunner.Result result = runner.run();
+				org.junit.Assert.assertEquals(engine, 5, result.population);
+			}
+		} finally {
+			System.setOut(stdout);
+		}
+		org.junit.Assert.assertEquals("", bytes.toString());
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * Board is sized by -s, random fill is repeatable for a seed
+	 */
+	@Test
+	public void testRunRandomFill() throws Exception {
+		String[] args = { "-s", "64x48", "-r", "7", "-seed", "5", "-n", "30" };
+		BatchRunner first = new BatchRunner();
+		first.parse(args);
+		BatchRunner second = new BatchRunner();
+		second.parse(args);
+		BatchRunner.Result expected = first.run();
+		BatchRunner.Result actual = second.run();
+		org.junit.Assert.assertEquals(64 * 48, actual.cells);
+		org.junit.Assert.assertEquals(expected.population, actual.population);
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 * A run resumed from its checkpoint ends where an uninterrupted run does
+	 */
+	@Test
+	public void testRunCheckpoint() throws Exception {
+		Path path = Files.createTempFile("gameoflife", ".gols");
+		try {
+			BatchRunner straight = new BatchRunner();
+			straight.parse(new String[] { "-s", "64x48", "-r", "5", "-n", "40" });
+			BatchRunner first = new BatchRunner();
+			first.parse(new String[] { "-s", "64x48", "-r", "5", "-n", "25", "-save", path.toString() });
+			first.run();
+			org.junit.Assert.assertEquals(25, Snapshot.load(new BitGridCells(), path).getGeneration());
+			BatchRunner resumed = new BatchRunner();
+			resumed.parse(new String[] { "-e", "CellsImpl", "-load", path.toString(), "-n", "15" });
+			org.junit.Assert.assertEquals(straight.run().population, resumed.run().population);
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#parse(String[])}.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseUnknownOption() {
+		new BatchRunner().parse(new String[] { "-x", "1" });
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#parse(String[])}.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseBadSize() {
+		new BatchRunner().parse(new String[] { "-s", "64" });
+	}
+
+	/**
+	 * Test method for {@link BatchRunner#run()}.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRunUnknownEngine() throws Exception {
+		BatchRunner runner = new BatchRunner();
+		runner.parse(new String[] { "-e", "NoSuchCells", "-p", WALKER });
+		runner.run();
+	}
+}
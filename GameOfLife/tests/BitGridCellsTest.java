@@ -0,0 +1,177 @@
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the packed engine generation by generation against the reference engine
+ */
+public class BitGridCellsTest {
+	private Cells cells;
+	private Cells reference;
+	private boolean teleport;
+
+	@Before
+	public void setUp() throws Exception {
+		teleport = true;
+	}
+
+	private void randomFill(int columns, int rows, long seed) {
+		cells = new BitGridCells();
+		reference = new CellsImpl();
+		cells.resize(columns, rows);
+		reference.resize(columns, rows);
+		if (!teleport) {
+			cells.toggleTeleport();
+			reference.toggleTeleport();
+		}
+		Random random = new Random(seed);
+		for (int i = 0; i < rows; ++i) {
+			for (int j = 0; j < columns; ++j) {
+				if (random.nextInt(3) == 0) {
+					cells.toggle(i, j);
+					reference.toggle(i, j);
+				}
+			}
+		}
+	}
+
+	private void assertSame(String message) {
+		org.junit.Assert.assertEquals(message, reference.getDimension(), cells.getDimension());
+		for (int i = 0; i < reference.getDimension().height; ++i) {
+			for (int j = 0; j < reference.getDimension().width; ++j) {
+				org.junit.Assert.assertEquals(message + " (" + i + ", " + j + ")",
+						reference.getState(i, j), cells.getState(i, j));
+			}
+		}
+		org.junit.Assert.assertEquals(message, reference.getAlivePoints(), cells.getAlivePoints());
+	}
+
+	private void runAndCompare(int columns, int rows, int steps) {
+		randomFill(columns, rows, columns * 31 + rows);
+		assertSame("initial");
+		for (int s = 0; s < steps; ++s) {
+			cells.step();
+			reference.step();
+			assertSame(columns + "x" + rows + " step " + s);
+		}
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#step()}.
+	 */
+	@Test
+	public void testStepTeleport() {
+		runAndCompare(8, 6, 20);
+		runAndCompare(64, 5, 20);
+		runAndCompare(70, 13, 20);
+		runAndCompare(130, 9, 20);
+		runAndCompare(1, 1, 3);
+		runAndCompare(3, 1, 3);
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#step()}.
+	 */
+	@Test
+	public void testStepConfined() {
+		teleport = false;
+		runAndCompare(8, 6, 20);
+		runAndCompare(64, 5, 20);
+		runAndCompare(70, 13, 20);
+		runAndCompare(130, 9, 20);
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#setParallelism(int)}.
+	 */
+	@Test
+	public void testParallelStep() {
+		randomFill(300, 97, 11);
+		((BitGridCells) cells).setParallelism(4);
+		((CellsImpl) reference).setParallelism(3);
+		for (int s = 0; s < 30; ++s) {
+			cells.step();
+			reference.step();
+			assertSame("parallel step " + s);
+		}
+		((BitGridCells) cells).setParallelism(1);
+		((CellsImpl) reference).setParallelism(1);
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#setVectorized(boolean)}.
+	 * Vector and scalar stepping agree on rows of many words, both teleporting and confined
+	 * without the vector module both engines step scalar and this still holds
+	 */
+	@Test
+	public void testVectorStep() {
+		for (boolean wrap : new boolean[] { true, false }) {
+			for (int c : new int[] { 63, 65, 200, 640, 1027 }) {
+				BitGridCells vector = new BitGridCells();
+				BitGridCells scalar = new BitGridCells();
+				vector.resize(c, 17);
+				scalar.resize(c, 17);
+				scalar.setVectorized(false);
+				org.junit.Assert.assertFalse(scalar.isVectorized());
+				if (!wrap) {
+					vector.toggleTeleport();
+					scalar.toggleTeleport();
+				}
+				Random random = new Random(c);
+				for (int i = 0; i < 17; ++i) {
+					for (int j = 0; j < c; ++j) {
+						if (random.nextInt(3) == 0) {
+							vector.toggle(i, j);
+							scalar.toggle(i, j);
+						}
+					}
+				}
+				for (int s = 0; s < 40; ++s) {
+					vector.step();
+					scalar.step();
+					org.junit.Assert.assertEquals(c + " step " + s, scalar.getAlivePoints(), vector.getAlivePoints());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#resize(int, int)}.
+	 */
+	@Test
+	public void testResizeKeepsCells() {
+		randomFill(100, 10, 7);
+		boolean[][] before = new boolean[10][100];
+		for (int i = 0; i < 10; ++i) {
+			for (int j = 0; j < 100; ++j) {
+				before[i][j] = cells.getState(i, j);
+			}
+		}
+		cells.resize(40, 7);
+		cells.resize(129, 20);
+		for (int i = 0; i < 20; ++i) {
+			for (int j = 0; j < 129; ++j) {
+				boolean expected = i < 7 && j < 40 && before[i][j];
+				org.junit.Assert.assertEquals("(" + i + ", " + j + ")", expected, cells.getState(i, j));
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link BitGridCells#toggle(int, int)}.
+	 */
+	@Test
+	public void testToggleAndClear() {
+		cells = new BitGridCells();
+		cells.resize(70, 3);
+		cells.toggle(2, 65);
+		org.junit.Assert.assertTrue(cells.getState(2, 65));
+		cells.clear(2, 65);
+		org.junit.Assert.assertFalse(cells.getState(2, 65));
+		cells.toggle(1, 3);
+		cells.clear();
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+}
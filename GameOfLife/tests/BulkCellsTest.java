@@ -0,0 +1,154 @@
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the bulk mutations of every engine against a plain boolean grid,
+ * reading the boards back both as points and by visiting live cells
+ */
+public class BulkCellsTest {
+	private static final int COLUMNS = 150;
+	private static final int ROWS = 45;
+	private Cells[] engines;
+	private boolean[][] expected;
+
+	@Before
+	public void setUp() throws Exception {
+		engines = new Cells[] { new CellsImpl(), new BitGridCells(), new IndexedCells(), new OffHeapCells(1024),
+				new SparseCells(), new HashLifeCells() };
+		for (Cells cells : engines) {
+			cells.resize(COLUMNS, ROWS);
+		}
+		expected = new boolean[ROWS][COLUMNS];
+	}
+
+	private void compare(String operation) {
+		HashSet<Point> points = new HashSet<>();
+		for (int i = 0; i < ROWS; ++i) {
+			for (int j = 0; j < COLUMNS; ++j) {
+				if (expected[i][j]) {
+					points.add(new Point(i, j));
+				}
+			}
+		}
+		for (Cells cells : engines) {
+			org.junit.Assert.assertEquals(operation + " " + cells.getClass().getName(), points,
+					new HashSet<>(cells.getAlivePoints()));
+			HashSet<Point> visited = new HashSet<>();
+			cells.forEachAlive((x, y) -> visited.add(new Point(x, y)));
+			org.junit.Assert.assertEquals(operation + " visited " + cells.getClass().getName(), points, visited);
+		}
+	}
+
+	private void fillRandom(double density, long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < ROWS; ++i) {
+			for (int j = 0; j < COLUMNS; ++j) {
+				if (random.nextDouble() < density) {
+					expected[i][j] = true;
+				}
+			}
+		}
+		for (Cells cells : engines) {
+			cells.fillRandom(density, seed);
+		}
+	}
+
+	/**
+	 * Test method for {@link Cells#fillRandom(double, long)}.
+	 */
+	@Test
+	public void testFillRandom() {
+		fillRandom(0.3, 42);
+		compare("fillRandom");
+		fillRandom(0.1, 7);
+		compare("fillRandom again");
+		fillRandom(0, 1);
+		compare("fillRandom empty");
+	}
+
+	/**
+	 * Test method for {@link Cells#setRegion(int, int, int, int, long[])}.
+	 */
+	@Test
+	public void testSetRegion() {
+		fillRandom(0.5, 3);
+		int[][] regions = { { 5, 3, 70, 20 }, { 0, 64, 64, 1 }, { 30, -10, 200, 25 }, { -3, 140, 13, 5 } };
+		Random random = new Random(11);
+		for (int[] region : regions) {
+			int x = region[0];
+			int y = region[1];
+			int width = region[2];
+			int height = region[3];
+			int w = (width + 63) >>> 6;
+			long[] bitmap = new long[w * height];
+			for (int k = 0; k < bitmap.length; ++k) {
+				bitmap[k] = random.nextLong();
+			}
+			for (int i = Math.max(0, x); i < Math.min(ROWS, x + height); ++i) {
+				for (int j = Math.max(0, y); j < Math.min(COLUMNS, y + width); ++j) {
+					int b = j - y;
+					expected[i][j] = (bitmap[((i - x) * w) + (b >>> 6)] & (1L << b)) != 0;
+				}
+			}
+			for (Cells cells : engines) {
+				cells.setRegion(x, y, width, height, bitmap);
+			}
+			compare("setRegion " + x + "," + y);
+		}
+	}
+
+	/**
+	 * Test method for {@link Cells#clearRegion(int, int, int, int)}.
+	 */
+	@Test
+	public void testClearRegion() {
+		fillRandom(0.5, 5);
+		int[][] regions = { { 10, 10, 100, 10 }, { -5, 130, 40, 60 }, { 44, 0, 150, 1 } };
+		for (int[] region : regions) {
+			for (int i = Math.max(0, region[0]); i < Math.min(ROWS, region[0] + region[3]); ++i) {
+				for (int j = Math.max(0, region[1]); j < Math.min(COLUMNS, region[1] + region[2]); ++j) {
+					expected[i][j] = false;
+				}
+			}
+			for (Cells cells : engines) {
+				cells.clearRegion(region[0], region[1], region[2], region[3]);
+			}
+			compare("clearRegion " + region[0] + "," + region[1]);
+		}
+	}
+
+	/**
+	 * Test method for {@link Cells#applyBatch(int[], int[], int, boolean)}.
+	 */
+	@Test
+	public void testApplyBatch() {
+		fillRandom(0.5, 9);
+		Random random = new Random(13);
+		int[] xs = new int[500];
+		int[] ys = new int[500];
+		for (int k = 0; k < xs.length; ++k) {
+			xs[k] = random.nextInt(ROWS + 10) - 5;
+			ys[k] = random.nextInt(COLUMNS + 10) - 5;
+		}
+		for (boolean alive : new boolean[] { true, false }) {
+			// only the first half of the arrays is used
+			for (int k = 0; k < 250; ++k) {
+				if (xs[k] >= 0 && ys[k] >= 0 && xs[k] < ROWS && ys[k] < COLUMNS) {
+					expected[xs[k]][ys[k]] = alive;
+				}
+			}
+			for (Cells cells : engines) {
+				cells.applyBatch(xs, ys, 250, alive);
+			}
+			compare("applyBatch " + alive);
+			int[] tmp = xs;
+			xs = ys;
+			ys = tmp;
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -232,6 +233,64 @@ public class CellsTest {
 		
 	}
 
+	/**
+	 * Test method for {@link Cells#resize(int, int)}.
+	 * Cells that fall outside of a smaller grid are dropped, the rest keep their location
+	 */
+	@Test
+	public void testResizeDropsCells() {
+		System.out.print("testResizeDropsCells\n");
+		cells.clear();
+		cells.resize(columnsLarge, rowsLarge);
+		cells.toggle(1, 2);
+		cells.toggle(rowsLarge - 1, columnsLarge - 1);
+		cells.resize(columns, rows);
+		org.junit.Assert.assertTrue(cells.getState(1, 2));
+		org.junit.Assert.assertEquals(1, cells.getAlivePoints().size());
+		cells.clear(1, 2);
+	}
+
+	/**
+	 * Test method for {@link Cells#resize(int, int)}.
+	 * Cells kept across many resizes, teleport toggles and clears still step like a freshly built grid
+	 */
+	@Test
+	public void testResizeIncremental() {
+		System.out.print("testResizeIncremental\n");
+		CellsImpl resized = new CellsImpl();
+		IndexedCells reference = new IndexedCells();
+		Random random = new Random(1);
+		int c = columns;
+		for (int round = 0; round < 100; ++round) {
+			// keep the width every third round, rows are then only added or removed
+			if (round % 3 != 0) {
+				c = 1 + random.nextInt(40);
+			}
+			int r = 1 + random.nextInt(30);
+			resized.resize(c, r);
+			reference.resize(c, r);
+			if (random.nextInt(5) == 0) {
+				resized.toggleTeleport();
+				reference.toggleTeleport();
+			}
+			if (random.nextInt(9) == 0) {
+				resized.clear();
+				reference.clear();
+			}
+			for (int k = 0; k < c * r / 3; ++k) {
+				int i = random.nextInt(r);
+				int j = random.nextInt(c);
+				resized.toggle(i, j);
+				reference.toggle(i, j);
+			}
+			for (int s = 0; s < 5; ++s) {
+				resized.step();
+				reference.step();
+				assertEquals("round " + round + " step " + s, reference.getAlivePoints(), resized.getAlivePoints());
+			}
+		}
+	}
+
 	/**
 	 * Test method for {@link Cells#toggle(int, int)}.
 	 */
@@ -374,6 +433,42 @@ public class CellsTest {
 		org.junit.Assert.assertTrue(c4); 
 	}
 
+	/**
+	 * Test method for {@link Cells#step()}.
+	 * Walker crosses many tiles and the grid edges, only active tiles are stepped
+	 */
+	@Test
+	public void testStepWalkerAcrossTiles() {
+		System.out.print("testStepWalkerAcrossTiles\n");
+		Cells large = new CellsImpl();
+		large.resize(30, 21);
+		large.toggle(0, 3);
+		large.toggle(1, 4);
+		large.toggle(2, 2);
+		large.toggle(2, 3);
+		large.toggle(2, 4);
+		// walker moves one cell down and right every four generations
+		for (int n = 1; n <= 100; ++n) {
+			for (int s = 0; s < 4; ++s) {
+				large.step();
+			}
+			org.junit.Assert.assertEquals(5, large.getAlivePoints().size());
+			org.junit.Assert.assertTrue(large.getState(n % 21, (n + 3) % 30));
+			org.junit.Assert.assertTrue(large.getState((n + 1) % 21, (n + 4) % 30));
+			org.junit.Assert.assertTrue(large.getState((n + 2) % 21, (n + 2) % 30));
+			org.junit.Assert.assertTrue(large.getState((n + 2) % 21, (n + 3) % 30));
+			org.junit.Assert.assertTrue(large.getState((n + 2) % 21, (n + 4) % 30));
+		}
+		// a still block far away is revived into an inactive area
+		large.toggle(10, 20);
+		large.toggle(10, 21);
+		large.toggle(11, 20);
+		large.toggle(11, 21);
+		large.step();
+		org.junit.Assert.assertTrue(large.getState(10, 20));
+		org.junit.Assert.assertTrue(large.getState(11, 21));
+	}
+
 	/**
 	 * Test method for {@link Cells#step()}.
 	 */
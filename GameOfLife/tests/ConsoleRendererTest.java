@@ -0,0 +1,143 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Plays the console output on a small terminal model, and checks the screen shows
+ * the board after every frame, whether written whole or as diffs
+ */
+public class ConsoleRendererTest {
+
+	/**
+	 * Terminal understanding clear screen, cursor home, cursor moves and new lines
+	 */
+	private static class Screen {
+		private final char[][] lines = new char[60][60];
+		private int row = 0;
+		private int column = 0;
+
+		Screen() {
+			clear();
+		}
+
+		private void clear() {
+			for (char[] line : lines) {
+				Arrays.fill(line, ' ');
+			}
+		}
+
+		void play(String s) {
+			int i = 0;
+			while (i < s.length()) {
+				char c = s.charAt(i++);
+				if (c == '\033') {
+					int end = i + 1;
+					while (!Character.isLetter(s.charAt(end))) {
+						++end;
+					}
+					String args = s.substring(i + 1, end);
+					if (s.charAt(end) == 'J') {
+						clear();
+					} else if (args.isEmpty()) {
+						row = 0;
+						column = 0;
+					} else {
+						String[] rc = args.split(";");
+						row = Integer.parseInt(rc[0]) - 1;
+						column = Integer.parseInt(rc[1]) - 1;
+					}
+					i = end + 1;
+				} else if (c == '\n') {
+					++row;
+					column = 0;
+				} else if (c == '\r') {
+					column = 0;
+				} else {
+					lines[row][column++] = c;
+				}
+			}
+		}
+
+		String line(int r) {
+			return new String(lines[r]).replaceAll(" +$", "");
+		}
+	}
+
+	private static void compare(Screen screen, Cells cells) {
+		int columns = cells.getDimension().width;
+		int rows = cells.getDimension().height;
+		org.junit.Assert.assertEquals("Conway's Game of Life", screen.line(0));
+		for (int i = 0; i < rows; ++i) {
+			StringBuilder line = new StringBuilder("| ");
+			for (int j = 0; j < columns; ++j) {
+				line.append(cells.getState(i, j) ? '0' : '.');
+			}
+			org.junit.Assert.assertEquals(line.append(" |").toString(), screen.line(i + 2));
+		}
+		org.junit.Assert.assertEquals(columns + 4, screen.line(rows + 2).length());
+		org.junit.Assert.assertEquals("", screen.line(rows + 3));
+	}
+
+	/**
+	 * Test method for {@link ConsoleRenderer#render(Cells)}.
+	 */
+	@Test
+	public void testRender() {
+		for (boolean diffs : new boolean[] { false, true }) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ConsoleRenderer renderer = new ConsoleRenderer(Channels.newChannel(out), diffs);
+			Screen screen = new Screen();
+			Cells cells = new BitGridCells();
+			cells.resize(40, 20);
+			cells.fillRandom(0.3, 21);
+			int[] sizes = new int[50];
+			for (int n = 0; n < 50; ++n) {
+				if (n == 30) {
+					cells.resize(25, 12);
+				}
+				renderer.render(cells);
+				sizes[n] = out.size();
+				screen.play(out.toString(StandardCharsets.US_ASCII));
+				out.reset();
+				compare(screen, cells);
+				cells.step();
+			}
+			// a diff is never longer than the whole frame
+			for (int n = 1; n < 30; ++n) {
+				org.junit.Assert.assertTrue(diffs ? sizes[n] <= sizes[1] : sizes[n] == sizes[1]);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link ConsoleRenderer#render(Cells)}.
+	 * Nothing changed writes only a cursor move, a glider little more
+	 */
+	@Test
+	public void testUnchanged() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ConsoleRenderer renderer = new ConsoleRenderer(Channels.newChannel(out), true);
+		Cells cells = new CellsImpl();
+		cells.resize(30, 10);
+		cells.applyBatch(new int[] { 1, 1, 2, 2 }, new int[] { 1, 2, 1, 2 }, 4, true);
+		renderer.render(cells);
+		out.reset();
+		renderer.render(cells);
+		org.junit.Assert.assertEquals("\033[14;1H", out.toString(StandardCharsets.US_ASCII));
+		// a glider changes a few runs of cells
+		cells.applyBatch(new int[] { 5, 6, 7, 7, 7 }, new int[] { 11, 12, 10, 11, 12 }, 5, true);
+		renderer.render(cells);
+		cells.step();
+		out.reset();
+		renderer.render(cells);
+		org.junit.Assert.assertTrue(out.size() < 60);
+		renderer.reset();
+		out.reset();
+		renderer.render(cells);
+		org.junit.Assert.assertTrue(out.toString(StandardCharsets.US_ASCII).startsWith("\033[H\033[2J"));
+	}
+}
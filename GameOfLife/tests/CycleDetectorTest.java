@@ -0,0 +1,121 @@
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks boards are found to repeat at the generation they settle at, with their period,
+ * and that the incremental hash of CellsImpl matches the hash visited on the other engines
+ */
+public class CycleDetectorTest {
+
+	/**
+	 * Step until the board repeats
+	 * @return generations stepped
+	 */
+	private static long settle(Cells cells, CycleDetector cycles, long most) {
+		cycles.record(0, cells.getHash());
+		for (long g = 1; g <= most; ++g) {
+			cells.step();
+			if (cycles.record(g, cells.getHash())) {
+				return g;
+			}
+		}
+		return most;
+	}
+
+	/**
+	 * Test method for {@link CycleDetector#record(long, long)}.
+	 * A block is still from the start, a blinker repeats every two generations
+	 */
+	@Test
+	public void testStillLifeAndBlinker() {
+		Cells cells = new CellsImpl();
+		cells.resize(10, 10);
+		cells.toggle(2, 2);
+		cells.toggle(2, 3);
+		cells.toggle(3, 2);
+		cells.toggle(3, 3);
+		CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_HISTORY);
+		org.junit.Assert.assertEquals(1, settle(cells, cycles, 10));
+		org.junit.Assert.assertEquals(0, cycles.getStart());
+		org.junit.Assert.assertEquals(1, cycles.getPeriod());
+		cells.clear();
+		org.junit.Assert.assertEquals(0, cells.getHash());
+		cells.toggle(5, 4);
+		cells.toggle(5, 5);
+		cells.toggle(5, 6);
+		cycles.reset();
+		org.junit.Assert.assertFalse(cycles.isCycle());
+		org.junit.Assert.assertEquals(2, settle(cells, cycles, 10));
+		org.junit.Assert.assertEquals(2, cycles.getPeriod());
+	}
+
+	/**
+	 * Test method for {@link Cells#getHash()}.
+	 * A soup settles at the same generation and period on every engine, and CellsImpl keeps
+	 * its hash up to date through steps and edits, stepping in parallel or not
+	 */
+	@Test
+	public void testSoup() {
+		CellsImpl parallel = new CellsImpl();
+		parallel.setParallelism(3);
+		Cells[] engines = { new CellsImpl(), parallel, new BitGridCells(), new IndexedCells(), new SparseCells() };
+		long start = -1;
+		long period = -1;
+		for (Cells cells : engines) {
+			cells.resize(48, 40);
+			if (cells instanceof SparseCells) {
+				cells.toggleTeleport();
+			}
+			cells.fillRandom(0.3, 21);
+			cells.toggle(20, 20);
+			cells.clear(21, 21);
+			CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_HISTORY);
+			settle(cells, cycles, 5000);
+			org.junit.Assert.assertTrue(cells.getClass().getName(), cycles.isCycle());
+			org.junit.Assert.assertEquals(Zobrist.hash(cells), cells.getHash());
+			if (start < 0) {
+				start = cycles.getStart();
+				period = cycles.getPeriod();
+			}
+			org.junit.Assert.assertEquals(cells.getClass().getName(), start, cycles.getStart());
+			org.junit.Assert.assertEquals(cells.getClass().getName(), period, cycles.getPeriod());
+		}
+		parallel.setParallelism(1);
+		org.junit.Assert.assertTrue(start > 0);
+		CellsImpl resized = new CellsImpl();
+		resized.resize(30, 30);
+		resized.fillRandom(0.5, 3);
+		resized.resize(20, 25);
+		org.junit.Assert.assertEquals(Zobrist.hash(resized), resized.getHash());
+	}
+
+	/**
+	 * Test method for {@link CycleDetector#remaining(long, long)}.
+	 * A glider on a torus comes back every 4 generations per cell of board width,
+	 * skipping whole periods ends on the board every generation leads to
+	 */
+	@Test
+	public void testFastForward() {
+		Cells cells = new BitGridCells();
+		cells.resize(8, 8);
+		cells.toggle(0, 1);
+		cells.toggle(1, 2);
+		cells.toggle(2, 0);
+		cells.toggle(2, 1);
+		cells.toggle(2, 2);
+		Cells reference = new BitGridCells();
+		reference.resize(8, 8);
+		cells.forEachAlive(reference::toggle);
+		CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_HISTORY);
+		long g = settle(cells, cycles, 100);
+		org.junit.Assert.assertEquals(32, cycles.getPeriod());
+		org.junit.Assert.assertEquals(0, cycles.getStart());
+		cells.stepBy(cycles.remaining(g, 1001));
+		reference.stepBy(1001);
+		org.junit.Assert.assertEquals(reference.getAlivePoints(), cells.getAlivePoints());
+		// a period longer than the history is never found
+		CycleDetector shortHistory = new CycleDetector(16);
+		settle(cells, shortHistory, 200);
+		org.junit.Assert.assertFalse(shortHistory.isCycle());
+	}
+}
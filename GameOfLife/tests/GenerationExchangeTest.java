@@ -0,0 +1,162 @@
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks generations reach the reader whole and in order, stay put while it holds them,
+ * and that the changes between them are found
+ */
+public class GenerationExchangeTest {
+	private static final String GLIDER = ".0.n..0n000";
+
+	private static void populate(Cells cells, int columns, int rows) {
+		cells.resize(columns, rows);
+		String[] lines = GLIDER.split("n");
+		for (int i = 0; i < lines.length; ++i) {
+			for (int j = 0; j < lines[i].length(); ++j) {
+				if (lines[i].charAt(j) == '0') {
+					cells.toggle(i, j);
+				}
+			}
+		}
+	}
+
+	private static int population(Generation g) {
+		int[] count = new int[1];
+		g.forEachAlive((x, y) -> ++count[0]);
+		return count[0];
+	}
+
+	/**
+	 * Test method for {@link GenerationExchange#acquire()}.
+	 */
+	@Test
+	public void testAcquireLatest() {
+		GenerationExchange exchange = new GenerationExchange();
+		org.junit.Assert.assertNull(exchange.acquire());
+		Cells cells = new CellsImpl();
+		populate(cells, 10, 8);
+		exchange.publish(cells, 0);
+		cells.step();
+		exchange.publish(cells, 1);
+		Generation g = exchange.acquire();
+		org.junit.Assert.assertEquals(1, g.getNumber());
+		org.junit.Assert.assertEquals(10, g.getColumns());
+		org.junit.Assert.assertEquals(8, g.getRows());
+		for (int i = 0; i < 8; ++i) {
+			for (int j = 0; j < 10; ++j) {
+				org.junit.Assert.assertEquals(cells.getState(i, j), g.getState(i, j));
+			}
+		}
+		org.junit.Assert.assertSame(g, exchange.acquire());
+	}
+
+	/**
+	 * Test method for {@link GenerationExchange#publish(Cells, long)}.
+	 * A held generation is not reused by later publishing
+	 */
+	@Test
+	public void testHeldGenerationUnchanged() {
+		GenerationExchange exchange = new GenerationExchange();
+		Cells cells = new BitGridCells();
+		populate(cells, 16, 16);
+		exchange.publish(cells, 0);
+		Generation held = exchange.acquire();
+		boolean[] before = new boolean[16 * 16];
+		held.forEachAlive((x, y) -> before[(x * 16) + y] = true);
+		for (int n = 1; n <= 10; ++n) {
+			cells.step();
+			exchange.publish(cells, n);
+		}
+		org.junit.Assert.assertEquals(0, held.getNumber());
+		for (int i = 0; i < 16; ++i) {
+			for (int j = 0; j < 16; ++j) {
+				org.junit.Assert.assertEquals(before[(i * 16) + j], held.getState(i, j));
+			}
+		}
+		org.junit.Assert.assertEquals(10, exchange.acquire().getNumber());
+	}
+
+	/**
+	 * Test method for {@link GenerationExchange#acquire()}.
+	 * A glider stepped flat out on another thread always reads as five cells, in order
+	 */
+	@Test
+	public void testConcurrentStepping() throws Exception {
+		for (Cells cells : new Cells[] { new BitGridCells(), new CellsImpl() }) {
+			GenerationExchange exchange = new GenerationExchange();
+			populate(cells, 32, 32);
+			exchange.publish(cells, 0);
+			Thread stepper = new Thread(() -> {
+				for (int n = 1; n <= 20000; ++n) {
+					cells.step();
+					exchange.publish(cells, n);
+				}
+			});
+			stepper.start();
+			long last = 0;
+			while (last < 20000) {
+				Generation g = exchange.acquire();
+				org.junit.Assert.assertTrue(g.getNumber() >= last);
+				org.junit.Assert.assertEquals(5, population(g));
+				last = g.getNumber();
+			}
+			stepper.join();
+		}
+	}
+
+	/**
+	 * Test method for {@link GenerationExchange#publish(Cells, long)}.
+	 * Only the bounds of the cells that changed are reported
+	 */
+	@Test
+	public void testChangedBounds() {
+		GenerationExchange exchange = new GenerationExchange();
+		Cells cells = new IndexedCells();
+		cells.resize(150, 20);
+		org.junit.Assert.assertEquals(new Rectangle(0, 0, 150, 20), exchange.publish(cells, 0));
+		org.junit.Assert.assertNull(exchange.publish(cells, 0));
+		cells.toggle(3, 70);
+		org.junit.Assert.assertEquals(new Rectangle(70, 3, 1, 1), exchange.publish(cells, 0));
+		cells.toggle(9, 130);
+		cells.toggle(5, 2);
+		org.junit.Assert.assertEquals(new Rectangle(2, 5, 129, 5), exchange.publish(cells, 0));
+		// a still life changes nothing
+		cells.clear();
+		cells.applyBatch(new int[] { 1, 1, 2, 2 }, new int[] { 1, 2, 1, 2 }, 4, true);
+		exchange.publish(cells, 0);
+		cells.step();
+		org.junit.Assert.assertNull(exchange.publish(cells, 1));
+		cells.resize(10, 10);
+		org.junit.Assert.assertEquals(new Rectangle(0, 0, 10, 10), exchange.publish(cells, 1));
+	}
+
+	/**
+	 * Test method for {@link Generation#forEachAlive(int, int, int, int, CellVisitor)}.
+	 */
+	@Test
+	public void testForEachAliveRegion() {
+		GenerationExchange exchange = new GenerationExchange();
+		Cells cells = new BitGridCells();
+		cells.resize(200, 10);
+		cells.fillRandom(0.5, 3);
+		exchange.publish(cells, 0);
+		Generation g = exchange.acquire();
+		int[][] regions = { { 2, 60, 70, 3 }, { -1, -5, 300, 20 }, { 4, 127, 2, 1 }, { 0, 199, 10, 10 } };
+		for (int[] r : regions) {
+			int[] count = new int[1];
+			g.forEachAlive(r[0], r[1], r[2], r[3], (x, y) -> {
+				org.junit.Assert.assertTrue(x >= r[0] && x < r[0] + r[3] && y >= r[1] && y < r[1] + r[2]);
+				++count[0];
+			});
+			int expected = 0;
+			for (int i = Math.max(0, r[0]); i < Math.min(10, r[0] + r[3]); ++i) {
+				for (int j = Math.max(0, r[1]); j < Math.min(200, r[1] + r[2]); ++j) {
+					expected += cells.getState(i, j) ? 1 : 0;
+				}
+			}
+			org.junit.Assert.assertEquals(expected, count[0]);
+		}
+	}
+}
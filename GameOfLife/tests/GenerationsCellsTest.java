@@ -0,0 +1,192 @@
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the Generations engine against the packed engine for two state rules,
+ * and cell by cell against a plain int grid for multi state ones
+ */
+public class GenerationsCellsTest {
+	private static final String[] RULES = { "B2/S/C3", "B2/S345/C4", "B3/S23/C8", "B0/S8/C3", "B2/S/C256" };
+	private GenerationsCells cells;
+
+	@Before
+	public void setUp() throws Exception {
+		cells = new GenerationsCells();
+	}
+
+	/**
+	 * Next generation of an int grid, cells beyond the edges are dead or wrapped
+	 */
+	private static int[][] step(int[][] grid, Rule rule, boolean wrap) {
+		int rows = grid.length;
+		int columns = grid[0].length;
+		int[][] next = new int[rows][columns];
+		for (int i = 0; i < rows; ++i) {
+			for (int j = 0; j < columns; ++j) {
+				int n = 0;
+				for (int di = -1; di <= 1; ++di) {
+					for (int dj = -1; dj <= 1; ++dj) {
+						int r = i + di;
+						int c = j + dj;
+						if (wrap) {
+							r = (r + rows) % rows;
+							c = (c + columns) % columns;
+						}
+						if ((di != 0 || dj != 0) && r >= 0 && c >= 0 && r < rows && c < columns && grid[r][c] == 1) {
+							++n;
+						}
+					}
+				}
+				next[i][j] = rule.next(grid[i][j], n);
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Test method for {@link GenerationsCells#step()}.
+	 * Two state rules step as on the packed engine
+	 */
+	@Test
+	public void testTwoStates() {
+		for (boolean wrap : new boolean[] { true, false }) {
+			BitGridCells reference = new BitGridCells();
+			cells = new GenerationsCells();
+			cells.resize(41, 29);
+			reference.resize(41, 29);
+			if (!wrap) {
+				cells.toggleTeleport();
+				reference.toggleTeleport();
+			}
+			cells.fillRandom(0.35, 3);
+			reference.fillRandom(0.35, 3);
+			for (int s = 0; s < 40; ++s) {
+				cells.step();
+				reference.step();
+				org.junit.Assert.assertEquals("wrap " + wrap + " step " + s, reference.getAlivePoints(),
+						cells.getAlivePoints());
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link GenerationsCells#step()}.
+	 * Every state of every cell, with and without teleport
+	 */
+	@Test
+	public void testStates() {
+		for (String r : RULES) {
+			Rule rule = Rule.parse(r);
+			for (boolean wrap : new boolean[] { true, false }) {
+				cells = new GenerationsCells();
+				cells.resize(53, 31);
+				if (!wrap) {
+					cells.toggleTeleport();
+				}
+				cells.setRule(rule);
+				int[][] expected = new int[31][53];
+				Random random = new Random(11);
+				for (int i = 0; i < 31; ++i) {
+					for (int j = 0; j < 53; ++j) {
+						expected[i][j] = random.nextInt(3) == 0 ? random.nextInt(rule.getStates()) : 0;
+						cells.setCellState(i, j, expected[i][j]);
+					}
+				}
+				for (int s = 0; s < 30; ++s) {
+					expected = step(expected, rule, wrap);
+					cells.step();
+					for (int i = 0; i < 31; ++i) {
+						for (int j = 0; j < 53; ++j) {
+							org.junit.Assert.assertEquals(r + " wrap " + wrap + " step " + s + " at " + i + "," + j,
+									expected[i][j], cells.getCellState(i, j));
+							org.junit.Assert.assertEquals(expected[i][j] == 1, cells.getState(i, j));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link GenerationsCells#getHash()}.
+	 * Boards differing only by decaying cells hash apart, the hash kept while stepping is the one
+	 * of the same board set cell by cell, and two state boards hash as on the other engines
+	 */
+	@Test
+	public void testHash() {
+		Rule rule = Rule.parse("B2/S345/C5");
+		GenerationsCells other = new GenerationsCells();
+		cells.resize(19, 17);
+		other.resize(19, 17);
+		cells.setRule(rule);
+		other.setRule(rule);
+		cells.setCellState(3, 4, 1);
+		other.setCellState(3, 4, 1);
+		cells.setCellState(8, 8, 2);
+		other.setCellState(8, 8, 3);
+		org.junit.Assert.assertEquals(cells.getAlivePoints(), other.getAlivePoints());
+		org.junit.Assert.assertNotEquals(cells.getHash(), other.getHash());
+		other.setCellState(8, 8, 2);
+		org.junit.Assert.assertEquals(cells.getHash(), other.getHash());
+		cells.fillRandom(0.4, 5);
+		for (int s = 0; s < 25; ++s) {
+			cells.step();
+			GenerationsCells copy = new GenerationsCells();
+			copy.resize(19, 17);
+			copy.setRule(rule);
+			for (int i = 0; i < 17; ++i) {
+				for (int j = 0; j < 19; ++j) {
+					copy.setCellState(i, j, cells.getCellState(i, j));
+				}
+			}
+			org.junit.Assert.assertEquals("step " + s, copy.getHash(), cells.getHash());
+		}
+		cells.setRule(Rule.CONWAY);
+		org.junit.Assert.assertEquals(Zobrist.hash(cells), cells.getHash());
+		// Brian's Brain, a lone cell decays at generation 1 and is gone at 2
+		cells = new GenerationsCells();
+		cells.resize(8, 8);
+		cells.setRule(Rule.parse("B2/S/C3"));
+		cells.toggle(4, 4);
+		CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_HISTORY);
+		long generation = 0;
+		while (!cycles.record(generation, cells.getHash())) {
+			cells.step();
+			++generation;
+		}
+		org.junit.Assert.assertEquals(2, cycles.getStart());
+		org.junit.Assert.assertEquals(1, cycles.getPeriod());
+	}
+
+	/**
+	 * Test method for {@link GenerationsCells#setRule(Rule)}.
+	 * Cells in states the new rule doesn't have are dead, the two state engines refuse the rule
+	 */
+	@Test
+	public void testSetRule() {
+		cells.resize(4, 1);
+		cells.setRule(Rule.parse("B2/S/C5"));
+		for (int j = 0; j < 4; ++j) {
+			cells.setCellState(0, j, j + 1);
+		}
+		cells.setRule(Rule.parse("B2/S/C3"));
+		org.junit.Assert.assertEquals(1, cells.getCellState(0, 0));
+		org.junit.Assert.assertEquals(2, cells.getCellState(0, 1));
+		org.junit.Assert.assertEquals(0, cells.getCellState(0, 2));
+		org.junit.Assert.assertEquals(0, cells.getCellState(0, 3));
+		cells.toggle(0, 1);
+		org.junit.Assert.assertEquals(0, cells.getCellState(0, 1));
+		for (Cells engine : new Cells[] { new CellsImpl(), new IndexedCells(), new BitGridCells(), new SparseCells(),
+				new HashLifeCells() }) {
+			try {
+				engine.setRule(Rule.parse("B2/S/C3"));
+				org.junit.Assert.fail("B2/S/C3 accepted by " + engine.getClass().getName());
+			} catch (IllegalArgumentException ex) {
+				org.junit.Assert.assertSame(Rule.CONWAY, engine.getRule());
+			}
+		}
+	}
+}
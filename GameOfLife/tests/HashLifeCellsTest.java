@@ -0,0 +1,113 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the HashLife engine against the packed engine and against known walker movement
+ */
+public class HashLifeCellsTest {
+	private HashLifeCells cells;
+
+	@Before
+	public void setUp() throws Exception {
+		cells = new HashLifeCells();
+		cells.resize(8, 6);
+	}
+
+	private void walker(int x, int y) {
+		cells.toggle(x, y + 1);
+		cells.toggle(x + 1, y + 2);
+		cells.toggle(x + 2, y);
+		cells.toggle(x + 2, y + 1);
+		cells.toggle(x + 2, y + 2);
+	}
+
+	private void assertWalker(int x, int y) {
+		org.junit.Assert.assertTrue(cells.getState(x, y + 1));
+		org.junit.Assert.assertTrue(cells.getState(x + 1, y + 2));
+		org.junit.Assert.assertTrue(cells.getState(x + 2, y));
+		org.junit.Assert.assertTrue(cells.getState(x + 2, y + 1));
+		org.junit.Assert.assertTrue(cells.getState(x + 2, y + 2));
+		org.junit.Assert.assertFalse(cells.getState(x, y));
+		org.junit.Assert.assertFalse(cells.getState(x + 1, y + 1));
+	}
+
+	/**
+	 * Test method for {@link HashLifeCells#step()}.
+	 */
+	@Test
+	public void testStepWalker() {
+		walker(0, 2);
+		cells.step();
+		org.junit.Assert.assertTrue(cells.getState(1, 2));
+		org.junit.Assert.assertTrue(cells.getState(1, 4));
+		org.junit.Assert.assertTrue(cells.getState(2, 3));
+		org.junit.Assert.assertTrue(cells.getState(2, 4));
+		org.junit.Assert.assertTrue(cells.getState(3, 3));
+		org.junit.Assert.assertEquals(5, cells.getAlivePoints().size());
+	}
+
+	/**
+	 * Test method for {@link HashLifeCells#stepBy(long)}.
+	 * Walker moves one cell down and right every four generations, forever
+	 */
+	@Test
+	public void testStepByWalker() {
+		walker(0, 0);
+		cells.stepBy(4 * 1000);
+		assertWalker(1000, 1000);
+		cells.stepBy(4L << 28);
+		assertWalker(1000 + (1 << 28), 1000 + (1 << 28));
+		// walker left the visible window long ago
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+
+	/**
+	 * Test method for {@link HashLifeCells#stepBy(long)}.
+	 */
+	@Test
+	public void testStepByMatchesStep() {
+		int size = 220;
+		BitGridCells reference = new BitGridCells();
+		reference.resize(size, size);
+		reference.toggleTeleport();
+		cells.resize(size, size);
+		Random random = new Random(5);
+		for (int i = 100; i < 120; ++i) {
+			for (int j = 100; j < 120; ++j) {
+				if (random.nextInt(2) == 0) {
+					cells.toggle(i, j);
+					reference.toggle(i, j);
+				}
+			}
+		}
+		int[] steps = { 1, 2, 3, 7, 16, 21 };
+		for (int s : steps) {
+			cells.stepBy(s);
+			reference.stepBy(s);
+			ArrayList<Point> expected = reference.getAlivePoints();
+			ArrayList<Point> actual = cells.getAlivePoints();
+			expected.sort((a, b) -> a.x != b.x ? a.x - b.x : a.y - b.y);
+			actual.sort((a, b) -> a.x != b.x ? a.x - b.x : a.y - b.y);
+			org.junit.Assert.assertEquals("after " + s, expected, actual);
+		}
+	}
+
+	/**
+	 * Test method for {@link HashLifeCells#clear(int, int)}.
+	 */
+	@Test
+	public void testToggleAndClear() {
+		cells.toggle(-5, 1000);
+		org.junit.Assert.assertTrue(cells.getState(-5, 1000));
+		cells.clear(-5, 1000);
+		org.junit.Assert.assertFalse(cells.getState(-5, 1000));
+		cells.toggle(1, 1);
+		cells.clear();
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+}
@@ -0,0 +1,118 @@
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the indexed engine generation by generation against the packed engine
+ */
+public class IndexedCellsTest {
+	private IndexedCells cells;
+	private BitGridCells reference;
+
+	@Before
+	public void setUp() throws Exception {
+		cells = new IndexedCells();
+		reference = new BitGridCells();
+	}
+
+	private void randomFill(int columns, int rows, long seed) {
+		cells.resize(columns, rows);
+		reference.resize(columns, rows);
+		Random random = new Random(seed);
+		for (int i = 0; i < rows; ++i) {
+			for (int j = 0; j < columns; ++j) {
+				if (random.nextInt(3) == 0) {
+					cells.toggle(i, j);
+					reference.toggle(i, j);
+				}
+			}
+		}
+	}
+
+	private void runAndCompare(int steps) {
+		for (int s = 0; s < steps; ++s) {
+			cells.step();
+			reference.step();
+			org.junit.Assert.assertEquals("step " + s, reference.getAlivePoints(), cells.getAlivePoints());
+		}
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#step()}.
+	 */
+	@Test
+	public void testStepTeleport() {
+		randomFill(37, 23, 5);
+		runAndCompare(40);
+		cells = new IndexedCells();
+		reference = new BitGridCells();
+		randomFill(1, 1, 1);
+		runAndCompare(3);
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#step()}.
+	 */
+	@Test
+	public void testStepConfined() {
+		cells.toggleTeleport();
+		reference.toggleTeleport();
+		randomFill(37, 23, 6);
+		runAndCompare(40);
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#toggleTeleport()}.
+	 * Edge cells copied into the ghost border while teleporting must not leak in afterwards
+	 */
+	@Test
+	public void testTeleportOff() {
+		randomFill(20, 20, 7);
+		runAndCompare(5);
+		cells.toggleTeleport();
+		reference.toggleTeleport();
+		runAndCompare(20);
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#setParallelism(int)}.
+	 */
+	@Test
+	public void testParallelStep() {
+		randomFill(300, 97, 11);
+		cells.setParallelism(4);
+		runAndCompare(30);
+		cells.setParallelism(1);
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#resize(int, int)}.
+	 */
+	@Test
+	public void testResizeKeepsCells() {
+		randomFill(100, 10, 7);
+		cells.resize(40, 7);
+		cells.resize(129, 20);
+		reference.resize(40, 7);
+		reference.resize(129, 20);
+		org.junit.Assert.assertEquals(reference.getAlivePoints(), cells.getAlivePoints());
+		runAndCompare(10);
+	}
+
+	/**
+	 * Test method for {@link IndexedCells#toggle(int, int)}.
+	 */
+	@Test
+	public void testToggleAndClear() {
+		cells.resize(70, 3);
+		cells.toggle(2, 65);
+		org.junit.Assert.assertTrue(cells.getState(2, 65));
+		cells.clear(2, 65);
+		org.junit.Assert.assertFalse(cells.getState(2, 65));
+		cells.toggle(1, 3);
+		cells.clear();
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+}
@@ -0,0 +1,103 @@
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the off-heap engine generation by generation against the packed engine,
+ * with buffers small enough that the grid is split over many of them
+ */
+public class OffHeapCellsTest {
+	private OffHeapCells cells;
+	private BitGridCells reference;
+
+	private void randomFill(int chunkBytes, int columns, int rows, long seed) {
+		cells = new OffHeapCells(chunkBytes);
+		reference = new BitGridCells();
+		cells.resize(columns, rows);
+		reference.resize(columns, rows);
+		Random random = new Random(seed);
+		for (int i = 0; i < rows; ++i) {
+			for (int j = 0; j < columns; ++j) {
+				if (random.nextInt(3) == 0) {
+					cells.toggle(i, j);
+					reference.toggle(i, j);
+				}
+			}
+		}
+	}
+
+	private void runAndCompare(int steps) {
+		for (int s = 0; s < steps; ++s) {
+			cells.step();
+			reference.step();
+			org.junit.Assert.assertEquals("step " + s, reference.getAlivePoints(), cells.getAlivePoints());
+		}
+	}
+
+	/**
+	 * Test method for {@link OffHeapCells#step()}.
+	 */
+	@Test
+	public void testStepTeleport() {
+		randomFill(1 << 30, 130, 23, 5);
+		runAndCompare(30);
+		// three rows of three words per buffer
+		randomFill(72, 130, 23, 6);
+		runAndCompare(30);
+		randomFill(8, 1, 1, 1);
+		runAndCompare(3);
+	}
+
+	/**
+	 * Test method for {@link OffHeapCells#step()}.
+	 */
+	@Test
+	public void testStepConfined() {
+		randomFill(72, 130, 23, 7);
+		cells.toggleTeleport();
+		reference.toggleTeleport();
+		runAndCompare(30);
+	}
+
+	/**
+	 * Test method for {@link OffHeapCells#setParallelism(int)}.
+	 */
+	@Test
+	public void testParallelStep() {
+		randomFill(4096, 300, 97, 11);
+		cells.setParallelism(4);
+		runAndCompare(30);
+		cells.setParallelism(1);
+	}
+
+	/**
+	 * Test method for {@link OffHeapCells#resize(int, int)}.
+	 */
+	@Test
+	public void testResizeKeepsCells() {
+		randomFill(40, 100, 10, 7);
+		cells.resize(40, 7);
+		cells.resize(129, 20);
+		reference.resize(40, 7);
+		reference.resize(129, 20);
+		org.junit.Assert.assertEquals(reference.getAlivePoints(), cells.getAlivePoints());
+		runAndCompare(10);
+	}
+
+	/**
+	 * Test method for {@link OffHeapCells#toggle(int, int)}.
+	 */
+	@Test
+	public void testToggleAndClear() {
+		cells = new OffHeapCells(16);
+		cells.resize(70, 3);
+		cells.toggle(2, 65);
+		org.junit.Assert.assertTrue(cells.getState(2, 65));
+		cells.clear(2, 65);
+		org.junit.Assert.assertFalse(cells.getState(2, 65));
+		cells.toggle(1, 3);
+		cells.clear();
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+}
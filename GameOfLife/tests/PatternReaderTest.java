@@ -0,0 +1,128 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the RLE, Life 1.06 and plaintext readers decode the same glider gun into any engine
+ */
+public class PatternReaderTest {
+	private static final String RLE = "#N Gosper glider gun\n#C a comment\nx = 36, y = 9, rule = B3/S23\n"
+			+ "24bo$22bobo$12b2o6b2o12b2o$11bo3bo4b2o12b2o$2o8bo5bo3b2o$2o8bo3bob2o4b\n"
+			+ "obo$10bo5bo7bo$11bo3bo$12b2o!\n";
+	private static final String PLAINTEXT = "!Name: Gosper glider gun\n!\n"
+			+ "........................O...........\n"
+			+ "......................O.O...........\n"
+			+ "............OO......OO............OO\n"
+			+ "...........O...O....OO............OO\n"
+			+ "OO........O.....O...OO..............\n"
+			+ "OO........O...O.OO....O.O...........\n"
+			+ "..........O.....O.......O...........\n"
+			+ "...........O...O....................\n"
+			+ "............OO......................\n";
+
+	private static ArrayList<Point> load(String text, Cells cells) throws IOException {
+		cells.resize(5, 5);
+		cells.toggle(1, 1);
+		PatternReader.read(new StringReader(text), new PatternReader.CellsSink(cells));
+		ArrayList<Point> points = cells.getAlivePoints();
+		points.sort((a, b) -> a.x != b.x ? a.x - b.x : a.y - b.y);
+		return points;
+	}
+
+	/**
+	 * Life 1.06 version of the plaintext gun, shifted so some coordinates are negative
+	 */
+	private static String life106() {
+		StringBuilder sb = new StringBuilder("#Life 1.06\n");
+		String[] rows = PLAINTEXT.split("\n");
+		for (int i = 2; i < rows.length; ++i) {
+			for (int j = 0; j < rows[i].length(); ++j) {
+				if (rows[i].charAt(j) == 'O') {
+					sb.append(j - 5).append(' ').append(i - 5).append('\n');
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Test method for {@link PatternReader#read(java.io.Reader, PatternSink)}.
+	 */
+	@Test
+	public void testFormatsAgree() throws Exception {
+		ArrayList<Point> expected = load(PLAINTEXT, new CellsImpl());
+		org.junit.Assert.assertEquals(36, expected.size());
+		org.junit.Assert.assertTrue(expected.contains(new Point(0, 24)));
+		org.junit.Assert.assertTrue(expected.contains(new Point(8, 13)));
+		for (Cells cells : new Cells[] { new CellsImpl(), new BitGridCells(), new SparseCells(), new IndexedCells() }) {
+			String engine = cells.getClass().getName();
+			org.junit.Assert.assertEquals(engine + " rle", expected, load(RLE, cells));
+			org.junit.Assert.assertEquals(engine, 36, cells.getDimension().width);
+			org.junit.Assert.assertEquals(engine, 9, cells.getDimension().height);
+			org.junit.Assert.assertEquals(engine + " plaintext", expected, load(PLAINTEXT, cells));
+			org.junit.Assert.assertEquals(engine + " life 1.06", expected, load(life106(), cells));
+		}
+	}
+
+	/**
+	 * Test method for {@link PatternReader#read(java.io.Reader, PatternSink)}.
+	 * Runs across word boundaries and runs longer than the pattern is wide
+	 */
+	@Test
+	public void testLongRuns() throws Exception {
+		BitGridCells cells = new BitGridCells();
+		ArrayList<Point> points = load("x = 130, y = 2\n60b70o$3o200o!", cells);
+		org.junit.Assert.assertEquals(70 + 130, points.size());
+		org.junit.Assert.assertFalse(cells.getState(0, 59));
+		org.junit.Assert.assertTrue(cells.getState(0, 60));
+		org.junit.Assert.assertTrue(cells.getState(0, 129));
+		org.junit.Assert.assertTrue(cells.getState(1, 129));
+	}
+
+	/**
+	 * Test method for {@link PatternReader#read(java.io.Reader, PatternSink)}.
+	 * The rule of the header is set on the engine, rules other than B/S are ignored
+	 */
+	@Test
+	public void testRleRule() throws Exception {
+		Cells cells = new IndexedCells();
+		load("x = 3, y = 1, rule = B36/S23\n3o!", cells);
+		org.junit.Assert.assertEquals(Rule.parse("B36/S23"), cells.getRule());
+		load("x = 3, y = 1, rule = 23/3\n3o!", cells);
+		org.junit.Assert.assertSame(Rule.CONWAY, cells.getRule());
+		cells.setRule(Rule.parse("B2/S"));
+		org.junit.Assert.assertEquals(3, load("x = 3, y = 1, rule = B2/S/C3\n3o!", cells).size());
+		org.junit.Assert.assertEquals(Rule.parse("B2/S"), cells.getRule());
+	}
+
+	/**
+	 * Test method for {@link PatternReader#read(java.io.Reader, PatternSink)}.
+	 * Letters of a Generations pattern are states, decaying ones only kept by GenerationsCells
+	 */
+	@Test
+	public void testRleGenerations() throws Exception {
+		GenerationsCells cells = new GenerationsCells();
+		String pattern = "x = 5, y = 2, rule = B2/S345/C4\n.AB2C$2CA!";
+		org.junit.Assert.assertEquals(2, load(pattern, cells).size());
+		org.junit.Assert.assertEquals(Rule.parse("B2/S345/C4"), cells.getRule());
+		int[][] expected = { { 0, 1, 2, 3, 3 }, { 3, 3, 1, 0, 0 } };
+		for (int i = 0; i < 2; ++i) {
+			for (int j = 0; j < 5; ++j) {
+				org.junit.Assert.assertEquals(expected[i][j], cells.getCellState(i, j));
+			}
+		}
+		org.junit.Assert.assertEquals(2, load(pattern, new BitGridCells()).size());
+	}
+
+	/**
+	 * Test method for {@link PatternReader#read(java.io.Reader, PatternSink)}.
+	 */
+	@Test(expected = IOException.class)
+	public void testInvalidRle() throws Exception {
+		load("x = 3, y = 3\nbo$2b?o!", new BitGridCells());
+	}
+}
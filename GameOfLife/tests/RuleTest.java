@@ -0,0 +1,192 @@
+import java.awt.Point;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks B/S rules are read and written back, and that every engine steps them
+ * like a plain boolean grid does
+ */
+public class RuleTest {
+	private static final int COLUMNS = 600;
+	private static final int ROWS = 40;
+	private static final String[] RULES = { "B3/S23", "B36/S23", "B3678/S34678", "B2/S", "B1357/S1357",
+			"B0123478/S01234678", "B3/S012345678" };
+
+	/**
+	 * Test method for {@link Rule#parse(String)}.
+	 */
+	@Test
+	public void testParse() {
+		org.junit.Assert.assertSame(Rule.CONWAY, Rule.parse("B3/S23"));
+		org.junit.Assert.assertSame(Rule.CONWAY, Rule.parse("b3s23"));
+		org.junit.Assert.assertSame(Rule.CONWAY, Rule.parse("23/3"));
+		org.junit.Assert.assertTrue(Rule.CONWAY.isConway());
+		Rule highLife = Rule.parse(" B36/S23 ");
+		org.junit.Assert.assertEquals("B36/S23", highLife.toString());
+		org.junit.Assert.assertEquals(highLife, Rule.parse("S23/B63"));
+		org.junit.Assert.assertEquals((1 << 3) | (1 << 6), highLife.getBirth());
+		org.junit.Assert.assertFalse(highLife.isConway());
+		Rule seeds = Rule.parse("B2/S");
+		org.junit.Assert.assertEquals(0, seeds.getSurvival());
+		org.junit.Assert.assertEquals("B2/S", seeds.toString());
+		org.junit.Assert.assertTrue(Rule.parse("B0/S8").isBirthOnZero());
+		Rule brain = Rule.parse("B2/S/C3");
+		org.junit.Assert.assertEquals(3, brain.getStates());
+		org.junit.Assert.assertTrue(brain.isGenerations());
+		org.junit.Assert.assertEquals("B2/S/C3", brain.toString());
+		org.junit.Assert.assertEquals(brain, Rule.parse("/2/3"));
+		org.junit.Assert.assertEquals("B2/S345/C4", Rule.parse("345/2/4").toString());
+		org.junit.Assert.assertSame(Rule.CONWAY, Rule.parse("B3/S23/C2"));
+		org.junit.Assert.assertFalse(Rule.parse("B3/S23/C3").isConway());
+		org.junit.Assert.assertEquals(2, brain.next(1, 2));
+		org.junit.Assert.assertEquals(0, brain.next(2, 2));
+		org.junit.Assert.assertEquals(1, brain.next(0, 2));
+		for (int state = 0; state <= 1; ++state) {
+			for (int n = 0; n <= 8; ++n) {
+				int expected = (n == 3 || (state == 1 && n == 2)) ? 1 : 0;
+				org.junit.Assert.assertEquals(expected, Rule.CONWAY.next(state, n));
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link Rule#parse(String)}.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseInvalid() {
+		Rule.parse("B9/S23");
+	}
+
+	/**
+	 * Next generation of a boolean grid, cells beyond the edges are dead or wrapped
+	 */
+	private static boolean[][] step(boolean[][] grid, Rule rule, boolean wrap) {
+		boolean[][] next = new boolean[ROWS][COLUMNS];
+		for (int i = 0; i < ROWS; ++i) {
+			for (int j = 0; j < COLUMNS; ++j) {
+				int n = 0;
+				for (int di = -1; di <= 1; ++di) {
+					for (int dj = -1; dj <= 1; ++dj) {
+						int r = i + di;
+						int c = j + dj;
+						if (wrap) {
+							r = (r + ROWS) % ROWS;
+							c = (c + COLUMNS) % COLUMNS;
+						}
+						if ((di != 0 || dj != 0) && r >= 0 && c >= 0 && r < ROWS && c < COLUMNS && grid[r][c]) {
+							++n;
+						}
+					}
+				}
+				next[i][j] = rule.next(grid[i][j] ? 1 : 0, n) != 0;
+			}
+		}
+		return next;
+	}
+
+	private static HashSet<Point> points(boolean[][] grid) {
+		HashSet<Point> points = new HashSet<>();
+		for (int i = 0; i < ROWS; ++i) {
+			for (int j = 0; j < COLUMNS; ++j) {
+				if (grid[i][j]) {
+					points.add(new Point(i, j));
+				}
+			}
+		}
+		return points;
+	}
+
+	private static HashSet<Point> points(Cells cells) {
+		HashSet<Point> points = new HashSet<>();
+		cells.forEachAlive((x, y) -> points.add(new Point(x, y)));
+		return points;
+	}
+
+	private static Cells[] boundedEngines() {
+		BitGridCells scalar = new BitGridCells();
+		scalar.setVectorized(false);
+		SparseCells sparse = new SparseCells();
+		sparse.toggleTeleport();
+		return new Cells[] { new CellsImpl(), new BitGridCells(), scalar, new OffHeapCells(1024), new IndexedCells(),
+				sparse };
+	}
+
+	/**
+	 * Test method for {@link Cells#setRule(Rule)}.
+	 * Bounded engines, with and without teleport, against a boolean grid
+	 * SparseCells is bounded with teleport on
+	 */
+	@Test
+	public void testBoundedEngines() {
+		for (String r : RULES) {
+			Rule rule = Rule.parse(r);
+			for (boolean wrap : new boolean[] { true, false }) {
+				for (Cells cells : boundedEngines()) {
+					// without teleport SparseCells is unbounded, and it never runs B0 rules
+					if ((rule.isBirthOnZero() || !wrap) && cells instanceof SparseCells) {
+						continue;
+					}
+					cells.resize(COLUMNS, ROWS);
+					if (cells.isTeleport() != wrap) {
+						cells.toggleTeleport();
+					}
+					cells.setRule(rule);
+					org.junit.Assert.assertEquals(rule, cells.getRule());
+					cells.fillRandom(0.35, 5);
+					boolean[][] grid = new boolean[ROWS][COLUMNS];
+					cells.forEachAlive((x, y) -> grid[x][y] = true);
+					boolean[][] expected = grid;
+					for (int n = 1; n <= 12; ++n) {
+						expected = step(expected, rule, wrap);
+						cells.step();
+						org.junit.Assert.assertEquals(r + " wrap " + wrap + " generation " + n + " "
+								+ cells.getClass().getName(), points(expected), points(cells));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link Cells#setRule(Rule)}.
+	 * The unbounded engines agree with each other, and refuse rules that fill empty space
+	 */
+	@Test
+	public void testUnboundedEngines() {
+		for (String r : RULES) {
+			Rule rule = Rule.parse(r);
+			Cells sparse = new SparseCells();
+			Cells hashLife = new HashLifeCells();
+			if (rule.isBirthOnZero()) {
+				for (Cells cells : new Cells[] { sparse, hashLife }) {
+					try {
+						cells.setRule(rule);
+						org.junit.Assert.fail(r + " accepted by " + cells.getClass().getName());
+					} catch (IllegalArgumentException ex) {
+						org.junit.Assert.assertEquals(Rule.CONWAY, cells.getRule());
+					}
+				}
+				continue;
+			}
+			for (Cells cells : new Cells[] { sparse, hashLife }) {
+				cells.resize(24, 24);
+				cells.fillRandom(0.4, 9);
+				// stepped once by Conway first, so HashLife has memoized futures to drop
+				cells.step();
+				cells.setRule(rule);
+			}
+			for (int n = 1; n <= 20; ++n) {
+				sparse.step();
+				hashLife.step();
+				org.junit.Assert.assertEquals(r + " generation " + n, points(sparse), points(hashLife));
+			}
+			hashLife.stepBy(16);
+			for (int n = 0; n < 16; ++n) {
+				sparse.step();
+			}
+			org.junit.Assert.assertEquals(r + " stepBy", points(sparse), points(hashLife));
+		}
+	}
+}
@@ -0,0 +1,171 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the scheduler steps on one thread, and stops stepping once paused or failing
+ */
+public class SimulationSchedulerTest {
+	private final AtomicLong generations = new AtomicLong();
+	private final AtomicLong frames = new AtomicLong();
+	private volatile Thread worker = null;
+	//nanoseconds each generation takes, and whether advance throws
+	private volatile long delay = 0;
+	private volatile boolean fail = false;
+	private SimulationScheduler scheduler;
+
+	@Before
+	public void setUp() throws Exception {
+		scheduler = new SimulationScheduler(new SimulationScheduler.Simulation() {
+			@Override
+			public void advance(int n) {
+				if (worker == null) {
+					worker = Thread.currentThread();
+				}
+				org.junit.Assert.assertSame(worker, Thread.currentThread());
+				if (fail) {
+					throw new IllegalStateException("failing on purpose");
+				}
+				if (delay > 0) {
+					java.util.concurrent.locks.LockSupport.parkNanos(delay * n);
+				}
+				generations.addAndGet(n);
+			}
+
+			@Override
+			public void frame() {
+				frames.incrementAndGet();
+			}
+		}, 100);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scheduler.shutdown();
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#step(int)}.
+	 */
+	@Test
+	public void testStep() throws Exception {
+		scheduler.step(5);
+		scheduler.step(7);
+		org.junit.Assert.assertTrue(scheduler.isBusy());
+		org.junit.Assert.assertFalse(scheduler.isRunning());
+		while (scheduler.isBusy()) {
+			Thread.sleep(1);
+		}
+		org.junit.Assert.assertEquals(12, generations.get());
+		org.junit.Assert.assertEquals(2, frames.get());
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#pause()}.
+	 * Pausing cancels a long step after the chunk in progress, and the generation reached is shown
+	 */
+	@Test
+	public void testPauseStep() throws Exception {
+		delay = 1000000;
+		scheduler.step(1000000);
+		Thread.sleep(50);
+		long start = System.nanoTime();
+		scheduler.pause();
+		org.junit.Assert.assertTrue(System.nanoTime() - start < 1000000000L);
+		org.junit.Assert.assertFalse(scheduler.isBusy());
+		long paused = generations.get();
+		org.junit.Assert.assertTrue(paused > 0 && paused < 1000000);
+		org.junit.Assert.assertEquals(1, frames.get());
+		Thread.sleep(20);
+		org.junit.Assert.assertEquals(paused, generations.get());
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#pause()}.
+	 * Pausing while playing frames of many slow generations waits for a chunk, not the frame
+	 */
+	@Test
+	public void testPauseFrame() throws Exception {
+		delay = 1000000;
+		for (int rate : new int[] { 100, 0 }) {
+			scheduler.setRate(rate);
+			scheduler.setGenerationsPerFrame(1000000);
+			scheduler.start();
+			Thread.sleep(50);
+			long start = System.nanoTime();
+			scheduler.pause();
+			org.junit.Assert.assertTrue(System.nanoTime() - start < 1000000000L);
+			org.junit.Assert.assertFalse(scheduler.isBusy());
+			long paused = generations.get();
+			org.junit.Assert.assertTrue(paused > 0 && paused < 1000000);
+			Thread.sleep(20);
+			org.junit.Assert.assertEquals(paused, generations.get());
+		}
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#isRunning()}.
+	 * A frame that throws stops the scheduler, which can be started again
+	 */
+	@Test
+	public void testFailure() throws Exception {
+		fail = true;
+		scheduler.start();
+		for (int k = 0; k < 1000 && scheduler.isRunning(); ++k) {
+			Thread.sleep(1);
+		}
+		org.junit.Assert.assertFalse(scheduler.isRunning());
+		scheduler.step(3);
+		scheduler.pause();
+		org.junit.Assert.assertFalse(scheduler.isBusy());
+		fail = false;
+		scheduler.start();
+		Thread.sleep(50);
+		scheduler.pause();
+		org.junit.Assert.assertTrue(generations.get() > 0);
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#pause()}.
+	 */
+	@Test
+	public void testPauseResume() throws Exception {
+		scheduler.setGenerationsPerFrame(3);
+		scheduler.start();
+		org.junit.Assert.assertTrue(scheduler.isRunning());
+		Thread.sleep(100);
+		scheduler.pause();
+		org.junit.Assert.assertFalse(scheduler.isRunning());
+		long paused = generations.get();
+		org.junit.Assert.assertTrue(paused > 0);
+		// a pause may cut the last frame short, every other frame steps 3
+		org.junit.Assert.assertTrue(paused <= frames.get() * 3);
+		org.junit.Assert.assertTrue(paused > (frames.get() - 1) * 3);
+		Thread.sleep(50);
+		org.junit.Assert.assertEquals(paused, generations.get());
+		scheduler.resume();
+		Thread.sleep(50);
+		scheduler.pause();
+		org.junit.Assert.assertTrue(generations.get() > paused);
+	}
+
+	/**
+	 * Test method for {@link SimulationScheduler#setRate(int)}.
+	 * At unlimited rate many generations are stepped for each frame
+	 */
+	@Test
+	public void testUnlimited() throws Exception {
+		scheduler.setRate(0);
+		scheduler.start();
+		Thread.sleep(200);
+		scheduler.pause();
+		org.junit.Assert.assertTrue(frames.get() > 0);
+		org.junit.Assert.assertTrue(generations.get() > frames.get() * 100);
+		scheduler.setRate(50);
+		org.junit.Assert.assertFalse(scheduler.isRunning());
+		org.junit.Assert.assertEquals(50, scheduler.getRate());
+	}
+}
@@ -0,0 +1,144 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks boards survive a snapshot round trip between any two engines
+ */
+public class SnapshotTest {
+	private static final String[] ENGINES = { "CellsImpl", "IndexedCells", "BitGridCells", "OffHeapCells",
+			"SparseCells" };
+	private Path path;
+
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("gameoflife", ".gols");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	private static Cells create(String name) throws ReflectiveOperationException {
+		return (Cells) Class.forName(name).getConstructor().newInstance();
+	}
+
+	private static void sort(ArrayList<Point> points) {
+		points.sort((a, b) -> a.x != b.x ? a.x - b.x : a.y - b.y);
+	}
+
+	/**
+	 * Test method for {@link Snapshot#save(Cells, long, Path)} and {@link Snapshot#load(Cells, Path)}.
+	 */
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (String from : ENGINES) {
+			for (String to : ENGINES) {
+				Cells saved = create(from);
+				saved.resize(130, 21);
+				Random random = new Random(from.length() * 31 + to.length());
+				for (int i = 0; i < 21; ++i) {
+					for (int j = 0; j < 130; ++j) {
+						if (random.nextInt(3) == 0) {
+							saved.toggle(i, j);
+						}
+					}
+				}
+				Snapshot.save(saved, 1234, path);
+
+				Cells loaded = create(to);
+				loaded.resize(8, 6);
+				loaded.toggle(1, 1);
+				Snapshot snapshot = Snapshot.load(loaded, path);
+				String message = from + " to " + to;
+				org.junit.Assert.assertEquals(message, 1234, snapshot.getGeneration());
+				org.junit.Assert.assertEquals(message, saved.isTeleport(), loaded.isTeleport());
+				org.junit.Assert.assertEquals(message, saved.getDimension(), loaded.getDimension());
+				ArrayList<Point> expected = saved.getAlivePoints();
+				ArrayList<Point> actual = loaded.getAlivePoints();
+				sort(expected);
+				sort(actual);
+				org.junit.Assert.assertEquals(message, expected, actual);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link Snapshot#load(Cells, Path)}.
+	 * A restored board keeps stepping like the one it was saved from
+	 */
+	@Test
+	public void testLoadAndStep() throws Exception {
+		BitGridCells saved = new BitGridCells();
+		saved.resize(200, 50);
+		saved.toggleTeleport();
+		Random random = new Random(3);
+		for (int i = 0; i < 50; ++i) {
+			for (int j = 0; j < 200; ++j) {
+				if (random.nextInt(3) == 0) {
+					saved.toggle(i, j);
+				}
+			}
+		}
+		Snapshot.save(saved, 0, path);
+		OffHeapCells loaded = new OffHeapCells();
+		Snapshot.load(loaded, path);
+		org.junit.Assert.assertFalse(loaded.isTeleport());
+		for (int s = 0; s < 20; ++s) {
+			saved.step();
+			loaded.step();
+			org.junit.Assert.assertEquals("step " + s, saved.getAlivePoints(), loaded.getAlivePoints());
+		}
+	}
+
+	/**
+	 * Test method for {@link Snapshot#load(Cells, Path)}.
+	 * The rule is restored with the board
+	 */
+	@Test
+	public void testRule() throws Exception {
+		Cells saved = new IndexedCells();
+		saved.resize(20, 20);
+		saved.setRule(Rule.parse("B3678/S34678"));
+		Snapshot.save(saved, 0, path);
+		Cells loaded = new BitGridCells();
+		Snapshot snapshot = Snapshot.load(loaded, path);
+		org.junit.Assert.assertEquals(saved.getRule(), snapshot.getRule());
+		org.junit.Assert.assertEquals(saved.getRule(), loaded.getRule());
+		GenerationsCells brain = new GenerationsCells();
+		brain.resize(20, 20);
+		brain.setRule(Rule.parse("B2/S/C3"));
+		brain.setCellState(3, 4, 1);
+		brain.setCellState(3, 5, 2);
+		Snapshot.save(brain, 0, path);
+		GenerationsCells restored = new GenerationsCells();
+		org.junit.Assert.assertEquals(brain.getRule(), Snapshot.load(restored, path).getRule());
+		org.junit.Assert.assertEquals(1, restored.getCellState(3, 4));
+		// only live cells are saved
+		org.junit.Assert.assertEquals(0, restored.getCellState(3, 5));
+		try {
+			Snapshot.load(new BitGridCells(), path);
+			org.junit.Assert.fail("B2/S/C3 loaded into BitGridCells");
+		} catch (IOException ex) {
+			org.junit.Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("B2/S/C3"));
+		}
+	}
+
+	/**
+	 * Test method for {@link Snapshot#load(Cells, Path)}.
+	 */
+	@Test(expected = IOException.class)
+	public void testLoadNotASnapshot() throws Exception {
+		Files.write(path, "..0n.0.n0..".getBytes());
+		Snapshot.load(new BitGridCells(), path);
+	}
+}
@@ -0,0 +1,93 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the sparse engine against the packed engine, and its hash set against java.util
+ */
+public class SparseCellsTest {
+
+	private static void sort(ArrayList<Point> points) {
+		points.sort((a, b) -> a.x != b.x ? a.x - b.x : a.y - b.y);
+	}
+
+	/**
+	 * Test method for {@link SparseCells#step()}.
+	 */
+	@Test
+	public void testStepTeleport() {
+		SparseCells cells = new SparseCells();
+		BitGridCells reference = new BitGridCells();
+		cells.resize(37, 23);
+		reference.resize(37, 23);
+		cells.toggleTeleport();
+		Random random = new Random(3);
+		for (int i = 0; i < 23; ++i) {
+			for (int j = 0; j < 37; ++j) {
+				if (random.nextInt(3) == 0) {
+					cells.toggle(i, j);
+					reference.toggle(i, j);
+				}
+			}
+		}
+		for (int s = 0; s < 50; ++s) {
+			cells.step();
+			reference.step();
+			ArrayList<Point> expected = reference.getAlivePoints();
+			ArrayList<Point> actual = cells.getAlivePoints();
+			sort(expected);
+			sort(actual);
+			org.junit.Assert.assertEquals("step " + s, expected, actual);
+		}
+	}
+
+	/**
+	 * Test method for {@link SparseCells#step()}.
+	 * Walker keeps going up and left through negative coordinates
+	 */
+	@Test
+	public void testStepUnbounded() {
+		SparseCells cells = new SparseCells();
+		cells.resize(8, 6);
+		cells.toggle(0, 0);
+		cells.toggle(0, 1);
+		cells.toggle(0, 2);
+		cells.toggle(1, 0);
+		cells.toggle(2, 1);
+		for (int s = 0; s < 4 * 100; ++s) {
+			cells.step();
+		}
+		org.junit.Assert.assertTrue(cells.getState(-100, -100));
+		org.junit.Assert.assertTrue(cells.getState(-100, -99));
+		org.junit.Assert.assertTrue(cells.getState(-100, -98));
+		org.junit.Assert.assertTrue(cells.getState(-99, -100));
+		org.junit.Assert.assertTrue(cells.getState(-98, -99));
+		org.junit.Assert.assertEquals(0, cells.getAlivePoints().size());
+	}
+
+	/**
+	 * Test method for {@link LongHashSet#remove(long)}.
+	 */
+	@Test
+	public void testHashSet() {
+		LongHashSet set = new LongHashSet();
+		HashSet<Long> reference = new HashSet<>();
+		Random random = new Random(9);
+		for (int n = 0; n < 20000; ++n) {
+			long key = SparseCells.pack(random.nextInt(64) - 32, random.nextInt(64) - 32);
+			if (random.nextBoolean()) {
+				org.junit.Assert.assertEquals(reference.add(key), set.add(key));
+			} else {
+				org.junit.Assert.assertEquals(reference.remove(key), set.remove(key));
+			}
+			org.junit.Assert.assertEquals(reference.size(), set.size());
+		}
+		for (long key : reference) {
+			org.junit.Assert.assertTrue(set.contains(key));
+		}
+	}
+}
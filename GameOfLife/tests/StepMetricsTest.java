@@ -0,0 +1,110 @@
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks the counts CellsImpl records every step against the boards before and after,
+ * the latency percentiles, and that the metrics are readable over JMX
+ */
+public class StepMetricsTest {
+
+	/**
+	 * Test method for {@link CellsImpl#setMetrics(StepMetrics)}.
+	 * Births, deaths and population match the live cells, stepping in parallel or not
+	 */
+	@Test
+	public void testCounts() {
+		for (int threads : new int[] { 1, 3 }) {
+			CellsImpl cells = new CellsImpl();
+			cells.setParallelism(threads);
+			cells.resize(70, 45);
+			cells.fillRandom(0.3, 8);
+			cells.toggle(0, 0);
+			cells.clear(1, 1);
+			StepMetrics metrics = new StepMetrics();
+			long[] listened = new long[2];
+			metrics.addListener((generation, population, births, deaths, evaluated, nanos) -> {
+				listened[0] = generation;
+				listened[1] = population;
+			});
+			cells.setMetrics(metrics);
+			HashSet<Point> before = new HashSet<>(cells.getAlivePoints());
+			org.junit.Assert.assertEquals(before.size(), cells.getPopulation());
+			for (int g = 1; g <= 60; ++g) {
+				cells.step();
+				HashSet<Point> after = new HashSet<>(cells.getAlivePoints());
+				HashSet<Point> born = new HashSet<>(after);
+				born.removeAll(before);
+				HashSet<Point> died = new HashSet<>(before);
+				died.removeAll(after);
+				org.junit.Assert.assertEquals(after.size(), cells.getPopulation());
+				org.junit.Assert.assertEquals(after.size(), metrics.getPopulation());
+				org.junit.Assert.assertEquals(born.size(), metrics.getBirths());
+				org.junit.Assert.assertEquals(died.size(), metrics.getDeaths());
+				org.junit.Assert.assertTrue(metrics.getCellsEvaluated() <= 70 * 45);
+				if (g == 1) {
+					// every tile is stepped after a resize
+					org.junit.Assert.assertEquals(70 * 45, metrics.getCellsEvaluated());
+				}
+				org.junit.Assert.assertEquals(g, metrics.getGenerations());
+				org.junit.Assert.assertEquals(g, listened[0]);
+				org.junit.Assert.assertEquals(after.size(), listened[1]);
+				before = after;
+			}
+			cells.setParallelism(1);
+		}
+	}
+
+	/**
+	 * Test method for {@link StepMetrics#getP99StepNanos()}.
+	 */
+	@Test
+	public void testLatency() {
+		StepMetrics metrics = new StepMetrics();
+		org.junit.Assert.assertEquals(0, metrics.getMedianStepNanos());
+		for (int k = 0; k < 90; ++k) {
+			metrics.record(0, 0, 0, 0, 1000);
+		}
+		for (int k = 0; k < 10; ++k) {
+			metrics.record(0, 0, 0, 0, 1000000);
+		}
+		org.junit.Assert.assertEquals(1023, metrics.getMedianStepNanos());
+		org.junit.Assert.assertEquals((1 << 20) - 1, metrics.getP99StepNanos());
+		org.junit.Assert.assertEquals(100900.0, metrics.getMeanStepNanos(), 0.001);
+		org.junit.Assert.assertEquals(90, metrics.getStepNanosHistogram()[9]);
+		metrics.reset();
+		org.junit.Assert.assertEquals(0, metrics.getGenerations());
+		org.junit.Assert.assertEquals(0, metrics.getP99StepNanos());
+	}
+
+	/**
+	 * Test method for {@link StepMetrics#register(String)}.
+	 */
+	@Test
+	public void testJmx() throws Exception {
+		CellsImpl cells = new CellsImpl();
+		cells.resize(10, 10);
+		cells.toggle(4, 4);
+		cells.toggle(4, 5);
+		cells.toggle(4, 6);
+		StepMetrics metrics = new StepMetrics();
+		cells.setMetrics(metrics);
+		metrics.register("StepMetricsTest");
+		try {
+			cells.step();
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("GameOfLife:type=StepMetrics,name=\"StepMetricsTest\"");
+			org.junit.Assert.assertEquals(3L, server.getAttribute(name, "Population"));
+			org.junit.Assert.assertEquals(2L, server.getAttribute(name, "Births"));
+			org.junit.Assert.assertEquals(1L, server.getAttribute(name, "Generations"));
+		} finally {
+			metrics.unregister();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Checks every pixel of the viewport image against the cell, grid line or background it shows,
+ * at zooms with and without grid lines, panned, and rendered a clip at a time
+ */
+public class ViewportRendererTest {
+	private static final Color CELL = Color.blue;
+	private static final Color DEAD = Color.white;
+	private static final Color GRID = Color.lightGray;
+	private static final Color BACKGROUND = Color.gray;
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+	private Cells cells;
+	private Generation generation;
+
+	@Before
+	public void setUp() throws Exception {
+		cells = new BitGridCells();
+		cells.resize(90, 50);
+		cells.fillRandom(0.4, 17);
+		GenerationExchange exchange = new GenerationExchange();
+		exchange.publish(cells, 0);
+		generation = exchange.acquire();
+	}
+
+	private void compare(ViewportRenderer renderer) {
+		BufferedImage image = renderer.getImage();
+		int zoom = renderer.getZoom();
+		for (int py = 0; py < HEIGHT; ++py) {
+			for (int px = 0; px < WIDTH; ++px) {
+				int row = renderer.rowAt(py);
+				int column = renderer.columnAt(px);
+				Color expected;
+				if (row < 0 || column < 0 || row >= 50 || column >= 90) {
+					expected = BACKGROUND;
+				} else if (zoom >= 4 && (renderer.rowAt(py + 1) != row || renderer.columnAt(px + 1) != column)) {
+					expected = GRID;
+				} else {
+					expected = cells.getState(row, column) ? CELL : DEAD;
+				}
+				org.junit.Assert.assertEquals("zoom " + zoom + " at " + px + "," + py, expected.getRGB(),
+						image.getRGB(px, py));
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link ViewportRenderer#render(Generation, int, int, Rectangle)}.
+	 */
+	@Test
+	public void testRender() {
+		ViewportRenderer renderer = new ViewportRenderer(14, CELL, DEAD, GRID, BACKGROUND);
+		renderer.render(generation, WIDTH, HEIGHT, null);
+		compare(renderer);
+		for (int k = 0; k < 8; ++k) {
+			renderer.zoom(-1, 37, 81);
+			renderer.render(generation, WIDTH, HEIGHT, null);
+			compare(renderer);
+		}
+		org.junit.Assert.assertEquals(1, renderer.getZoom());
+		renderer.zoom(3, 0, 0);
+		renderer.pan(-25, 13);
+		renderer.render(generation, WIDTH, HEIGHT, null);
+		compare(renderer);
+	}
+
+	/**
+	 * Test method for {@link ViewportRenderer#render(Generation, int, int, Rectangle)}.
+	 * Rendering the panel a clip at a time gives the same image
+	 */
+	@Test
+	public void testRenderClips() {
+		ViewportRenderer renderer = new ViewportRenderer(6, CELL, DEAD, GRID, BACKGROUND);
+		renderer.pan(-40, -7);
+		renderer.render(null, WIDTH, HEIGHT, null);
+		for (int y = 0; y < HEIGHT; y += 33) {
+			for (int x = 0; x < WIDTH; x += 47) {
+				renderer.render(generation, WIDTH, HEIGHT, new Rectangle(x, y, 47, 33));
+			}
+		}
+		compare(renderer);
+	}
+
+	/**
+	 * Test method for {@link ViewportRenderer#zoom(int, int, int)}.
+	 * The cell under the mouse stays under it, and changed cells map to the pixels they cover
+	 */
+	@Test
+	public void testZoomAround() {
+		ViewportRenderer renderer = new ViewportRenderer(14, CELL, DEAD, GRID, BACKGROUND);
+		int row = renderer.rowAt(101);
+		int column = renderer.columnAt(157);
+		renderer.zoom(1, 157, 101);
+		org.junit.Assert.assertEquals(20, renderer.getZoom());
+		org.junit.Assert.assertEquals(row, renderer.rowAt(101));
+		org.junit.Assert.assertEquals(column, renderer.columnAt(157));
+		Rectangle pixels = renderer.toPixels(new Rectangle(column, row, 2, 3));
+		org.junit.Assert.assertEquals(column, renderer.columnAt(pixels.x));
+		org.junit.Assert.assertEquals(row, renderer.rowAt(pixels.y));
+		org.junit.Assert.assertEquals(column + 1, renderer.columnAt(pixels.x + pixels.width - 1));
+		org.junit.Assert.assertEquals(row + 2, renderer.rowAt(pixels.y + pixels.height - 1));
+		renderer.fit(90, 50, WIDTH, HEIGHT);
+		org.junit.Assert.assertEquals(3, renderer.getZoom());
+		org.junit.Assert.assertEquals(0, renderer.columnAt(3));
+	}
+}
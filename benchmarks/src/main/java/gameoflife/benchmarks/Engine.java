@@ -0,0 +1,136 @@
+package gameoflife.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Handle onto a Cells engine for the benchmarks
+ * The engines live in the default package, which can't be imported from here and JMH
+ * refuses benchmarks in the default package, so methods are bound once as method handles
+ */
+final class Engine {
+	//engines that start with teleport off, HashLife can't teleport at all
+	private static final String UNBOUNDED_SPARSE = "SparseCells";
+	private static final String UNBOUNDED_HASHLIFE = "HashLifeCells";
+
+	private final MethodHandle resize;
+	private final MethodHandle step;
+	private final MethodHandle toggle;
+	private final MethodHandle getAlivePoints;
+	private final MethodHandle toggleTeleport;
+
+	/**
+	 * Create an engine by class name and size it
+	 * @param name: Cells implementation class, i.e. CellsImpl
+	 * @param columns
+	 * @param rows
+	 * @param teleport: teleport cells across the grid edges
+	 */
+	Engine(String name, int columns, int rows, boolean teleport) throws ReflectiveOperationException {
+		Class<?> type = Class.forName(name);
+		Object cells = type.getConstructor().newInstance();
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		this.resize = lookup.findVirtual(type, "resize", MethodType.methodType(void.class, int.class, int.class))
+				.bindTo(cells);
+		this.step = lookup.findVirtual(type, "step", MethodType.methodType(void.class)).bindTo(cells);
+		this.toggle = lookup.findVirtual(type, "toggle", MethodType.methodType(void.class, int.class, int.class))
+				.bindTo(cells);
+		this.getAlivePoints = lookup.findVirtual(type, "getAlivePoints", MethodType.methodType(java.util.ArrayList.class))
+				.bindTo(cells).asType(MethodType.methodType(Object.class));
+		this.toggleTeleport = lookup.findVirtual(type, "toggleTeleport", MethodType.methodType(void.class))
+				.bindTo(cells);
+		resize(columns, rows);
+		boolean startsTeleporting = !UNBOUNDED_SPARSE.equals(name) && !UNBOUNDED_HASHLIFE.equals(name);
+		if (teleport != startsTeleporting && !UNBOUNDED_HASHLIFE.equals(name)) {
+			toggleTeleport();
+		}
+	}
+
+	void resize(int columns, int rows) {
+		try {
+			this.resize.invokeExact(columns, rows);
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	void step() {
+		try {
+			this.step.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	void toggle(int x, int y) {
+		try {
+			this.toggle.invokeExact(x, y);
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	Object getAlivePoints() {
+		try {
+			return this.getAlivePoints.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	void toggleTeleport() {
+		try {
+			this.toggleTeleport.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	/**
+	 * Fill the grid with a pattern
+	 * @param pattern: random, gliders or soup
+	 * @param columns
+	 * @param rows
+	 */
+	void fill(String pattern, int columns, int rows) {
+		Random random = new Random(1);
+		switch (pattern) {
+		case "random":
+			// same density as GameGrid.randomFill, one cell in seven
+			for (int i = 0; i < rows; ++i) {
+				for (int j = 0; j < columns; ++j) {
+					if (random.nextInt(7) == 0) {
+						toggle(i, j);
+					}
+				}
+			}
+			break;
+		case "gliders":
+			// one walker every 32x32 block
+			for (int i = 0; i + 3 <= rows; i += 32) {
+				for (int j = 0; j + 3 <= columns; j += 32) {
+					toggle(i, j + 1);
+					toggle(i + 1, j + 2);
+					toggle(i + 2, j);
+					toggle(i + 2, j + 1);
+					toggle(i + 2, j + 2);
+				}
+			}
+			break;
+		case "soup":
+			for (int i = 0; i < rows; ++i) {
+				for (int j = 0; j < columns; ++j) {
+					if (random.nextBoolean()) {
+						toggle(i, j);
+					}
+				}
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown pattern " + pattern);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package gameoflife.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Time of resizing, listing live cells and toggling single cells on a randomly filled board
+ * NOTE: CellsImpl keeps one object per cell, large boards need a large -Xmx or -p size=64,512
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MutationBenchmark {
+	//resize alternates between the board size and this many fewer columns and rows
+	private static final int RESIZE_DELTA = 16;
+	private static final int TOGGLES = 4096;
+
+	@Param({ "CellsImpl", "IndexedCells", "BitGridCells", "OffHeapCells", "SparseCells", "HashLifeCells" })
+	public String engine;
+
+	@Param({ "64", "512", "2048", "8192" })
+	public int size;
+
+	@Param({ "true", "false" })
+	public boolean teleport;
+
+	private Engine cells;
+	private boolean shrunk = false;
+	private final int[] toggleX = new int[TOGGLES];
+	private final int[] toggleY = new int[TOGGLES];
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException {
+		this.cells = new Engine(this.engine, this.size, this.size, this.teleport);
+		this.cells.fill("random", this.size, this.size);
+		Random random = new Random(2);
+		for (int i = 0; i < TOGGLES; ++i) {
+			this.toggleX[i] = random.nextInt(this.size - RESIZE_DELTA);
+			this.toggleY[i] = random.nextInt(this.size - RESIZE_DELTA);
+		}
+	}
+
+	/**
+	 * Resize, which for CellsImpl also recalculates all neighbors
+	 */
+	@Benchmark
+	public void resize() {
+		int s = this.shrunk ? this.size : this.size - RESIZE_DELTA;
+		this.cells.resize(s, s);
+		this.shrunk = !this.shrunk;
+	}
+
+	@Benchmark
+	public Object getAlivePoints() {
+		return this.cells.getAlivePoints();
+	}
+
+	@Benchmark
+	public void toggle() {
+		this.cells.toggle(this.toggleX[this.next], this.toggleY[this.next]);
+		this.next = (this.next + 1) & (TOGGLES - 1);
+	}
+}
@@ -0,0 +1,65 @@
+package gameoflife.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Kevin Guerra kevingnet@gmail.com
+ * Time of a fixed number of generations across engines, board sizes, densities and teleporting
+ * Each iteration times GENERATIONS generations of a board freshly filled with the pattern,
+ * few enough that soups haven't settled into still lifes and oscillators, so the engines are
+ * compared at the density of the pattern, and HashLife isn't timed on a board it already memoized
+ * Scores are the time of the whole batch, divide by GENERATIONS for one generation
+ * BitGridCells runs with its vector kernel, the module is added to the forked jvm
+ * NOTE: CellsImpl keeps one object per cell, large boards need a large -Xmx or -p size=64,512
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = StepBenchmark.GENERATIONS)
+@Measurement(iterations = 10, batchSize = StepBenchmark.GENERATIONS)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "--add-modules", "jdk.incubator.vector" })
+public class StepBenchmark {
+	//generations timed from each fresh board
+	static final int GENERATIONS = 32;
+
+	@Param({ "CellsImpl", "IndexedCells", "BitGridCells", "OffHeapCells", "SparseCells", "HashLifeCells" })
+	public String engine;
+
+	@Param({ "64", "512", "2048", "8192" })
+	public int size;
+
+	@Param({ "random", "gliders", "soup" })
+	public String pattern;
+
+	@Param({ "true", "false" })
+	public boolean teleport;
+
+	private Engine cells;
+
+	/**
+	 * A fresh board for every batch of generations, the fill is seeded so every batch starts the same
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws ReflectiveOperationException {
+		this.cells = new Engine(this.engine, this.size, this.size, this.teleport);
+		this.cells.fill(this.pattern, this.size, this.size);
+	}
+
+	@Benchmark
+	public void step() {
+		this.cells.step();
+	}
+}